@@ -0,0 +1,44 @@
+package mathalgo.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+
+/**
+ * Access to the algorithms under benchmark.<br /><br />
+ * 
+ * The algorithm classes live in the default package, which cannot be imported, and JMH refuses benchmarks in the
+ * default package. Their static methods are therefore looked up once by name and called through
+ * {@code static final} {@link MethodHandle}s, which the JIT inlines like a direct call.
+ * 
+ * @author Stéphan R.
+ *
+ */
+final class Algorithms {
+
+	private Algorithms() {
+	}
+	
+	/**
+	 * @param owner the simple name of the algorithm class
+	 * @param name the static method
+	 * @param parameters its parameter types
+	 * 
+	 * @return a handle to the method, reference return types are seen as {@code Object}
+	 */
+	static MethodHandle find(String owner, String name, Class<?>... parameters) {
+		try {
+			Method method = Class.forName(owner).getDeclaredMethod(name, parameters);
+			
+			method.setAccessible(true);
+			
+			MethodHandle handle = MethodHandles.lookup().unreflect(method);
+			MethodType type = handle.type();
+			
+			return type.returnType().isPrimitive() ? handle : handle.asType(type.changeReturnType(Object.class));
+		} catch (ReflectiveOperationException e) {
+			throw new IllegalStateException("Cannot find " + owner + "." + name, e);
+		}
+	}
+}
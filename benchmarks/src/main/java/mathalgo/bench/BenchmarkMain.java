@@ -0,0 +1,34 @@
+package mathalgo.bench;
+
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+/**
+ * Entry point of the benchmark jar: same command line as {@code org.openjdk.jmh.Main}, with the GC profiler
+ * always enabled so that every result comes with its allocation rate ({@code gc.alloc.rate.norm}).
+ * 
+ * @author Stéphan R.
+ *
+ */
+public final class BenchmarkMain {
+
+	private BenchmarkMain() {
+	}
+	
+	/**
+	 * @param args JMH command line options, e.g. a benchmark regexp or {@code -p n=1000000}
+	 * 
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		Options options = new OptionsBuilder()
+				.parent(new CommandLineOptions(args))
+				.addProfiler(GCProfiler.class)
+				.build();
+		
+		new Runner(options).run();
+	}
+}
@@ -0,0 +1,46 @@
+package mathalgo.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Both digit sums of {@code DigitSum}
+ * 
+ * @author Stéphan R.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DigitSumBenchmark {
+
+	private static final MethodHandle CLASSIC = Algorithms.find("DigitSum", "classicDigitSum", int.class);
+	private static final MethodHandle FORMULA = Algorithms.find("DigitSum", "digitSum", int.class);
+	
+	@Param({ "9", "12345", "123456789" })
+	int x;
+	
+	@Benchmark
+	public int classicDigitSum() throws Throwable {
+		return (int) CLASSIC.invokeExact(x);
+	}
+	
+	@Benchmark
+	public int digitSum() throws Throwable {
+		return (int) FORMULA.invokeExact(x);
+	}
+}
@@ -0,0 +1,52 @@
+package mathalgo.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * The three factorials of {@code Factorial}. The classic one overflows past 20! but still does the same work.
+ * 
+ * @author Stéphan R.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FactorialBenchmark {
+
+	private static final MethodHandle CLASSIC = Algorithms.find("Factorial", "classic", int.class);
+	private static final MethodHandle STERLING = Algorithms.find("Factorial", "sterlingFormula", int.class);
+	private static final MethodHandle PRIME_FACTORIZATION = Algorithms.find("Factorial", "primeFactorization", int.class);
+	
+	@Param({ "10", "20", "100", "1000" })
+	int n;
+	
+	@Benchmark
+	public long classic() throws Throwable {
+		return (long) CLASSIC.invokeExact(n);
+	}
+	
+	@Benchmark
+	public long sterlingFormula() throws Throwable {
+		return (long) STERLING.invokeExact(n);
+	}
+	
+	@Benchmark
+	public Object primeFactorization() throws Throwable {
+		return (Object) PRIME_FACTORIZATION.invokeExact(n);
+	}
+}
@@ -0,0 +1,105 @@
+package mathalgo.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every GCD variant of {@code GreatestCommonDivisor}, over the same batch of random pairs
+ * 
+ * @author Stéphan R.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GreatestCommonDivisorBenchmark {
+
+	private static final int PAIRS = 1024;
+	
+	private static final MethodHandle GCD = Algorithms.find("GreatestCommonDivisor", "gcd", long.class, long.class);
+	private static final MethodHandle EUCLIDEAN = Algorithms.find("GreatestCommonDivisor", "euclidean", long.class, long.class);
+	private static final MethodHandle EXTENDED = Algorithms.find("GreatestCommonDivisor", "extendedEuclidean", int.class, int.class, int.class, int.class);
+	private static final MethodHandle BINARY = Algorithms.find("GreatestCommonDivisor", "binary", long.class, long.class);
+	
+	/**
+	 * Bit length of the operands, the extended variant only takes the low 31 bits
+	 */
+	@Param({ "16", "31", "62" })
+	int bits;
+	
+	private long[] a;
+	private long[] b;
+	
+	@Setup
+	public void setUp() {
+		Random random = new Random(42);
+		
+		a = new long[PAIRS];
+		b = new long[PAIRS];
+		
+		for(int i = 0; i < PAIRS; i++) {
+			a[i] = (random.nextLong() >>> (64 - bits)) | 1;
+			b[i] = (random.nextLong() >>> (64 - bits)) | 2;
+		}
+	}
+	
+	@Benchmark
+	public long gcd() throws Throwable {
+		long sum = 0;
+		
+		for(int i = 0; i < PAIRS; i++) {
+			sum += (long) GCD.invokeExact(a[i], b[i]);
+		}
+		
+		return sum;
+	}
+	
+	@Benchmark
+	public long euclidean() throws Throwable {
+		long sum = 0;
+		
+		for(int i = 0; i < PAIRS; i++) {
+			sum += (long) EUCLIDEAN.invokeExact(a[i], b[i]);
+		}
+		
+		return sum;
+	}
+	
+	@Benchmark
+	public long extendedEuclidean() throws Throwable {
+		long sum = 0;
+		
+		for(int i = 0; i < PAIRS; i++) {
+			sum += (int) EXTENDED.invokeExact((int) (a[i] & Integer.MAX_VALUE), (int) (b[i] & Integer.MAX_VALUE), 1, 1);
+		}
+		
+		return sum;
+	}
+	
+	@Benchmark
+	public long binary() throws Throwable {
+		long sum = 0;
+		
+		for(int i = 0; i < PAIRS; i++) {
+			sum += (long) BINARY.invokeExact(a[i], b[i]);
+		}
+		
+		return sum;
+	}
+}
@@ -0,0 +1,80 @@
+package mathalgo.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every factorizer of {@code IntegerFactorization}, on a single number n. The rho variants are timed on
+ * finding one divisor.
+ * 
+ * @author Stéphan R.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class IntegerFactorizationBenchmark {
+
+	private static final MethodHandle TRIAL_DIVISION = Algorithms.find("IntegerFactorization", "trialDivision", int.class);
+	private static final MethodHandle TRIAL_DIVISION_2 = Algorithms.find("IntegerFactorization", "trialDivision2", int.class);
+	private static final MethodHandle POLLARD_RHO = Algorithms.find("IntegerFactorization", "pollardRho", long.class);
+	private static final MethodHandle RICHARD_BRENT = Algorithms.find("IntegerFactorization", "richardBrent", long.class);
+	private static final MethodHandle WHEEL = Algorithms.find("IntegerFactorization", "wheelFactorization", int.class);
+	private static final MethodHandle PRIME_FACTORIZATION = Algorithms.find("IntegerFactorization", "primeFactorization", int.class);
+	
+	/**
+	 * 2 * 3 * 607, 127 * 9721, 3^2 * 1997 * 4877
+	 */
+	@Param({ "3642", "1234567", "87654321" })
+	int n;
+	
+	@Benchmark
+	public int trialDivision() throws Throwable {
+		return (int) TRIAL_DIVISION.invokeExact(n);
+	}
+	
+	@Benchmark
+	public int trialDivision2() throws Throwable {
+		return (int) TRIAL_DIVISION_2.invokeExact(n);
+	}
+	
+	/**
+	 * One divisor only: {@code factorize} drops composite divisors and is not a stable target
+	 */
+	@Benchmark
+	public long pollardRho() throws Throwable {
+		return (long) POLLARD_RHO.invokeExact((long) n);
+	}
+	
+	/**
+	 * One divisor only, see {@link #pollardRho()}
+	 */
+	@Benchmark
+	public long richardBrent() throws Throwable {
+		return (long) RICHARD_BRENT.invokeExact((long) n);
+	}
+	
+	@Benchmark
+	public int wheelFactorization() throws Throwable {
+		return (int) WHEEL.invokeExact(n);
+	}
+	
+	@Benchmark
+	public int primeFactorization() throws Throwable {
+		return (int) PRIME_FACTORIZATION.invokeExact(n);
+	}
+}
@@ -0,0 +1,46 @@
+package mathalgo.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Both LCM overloads of {@code LeastCommonMultiple}
+ * 
+ * @author Stéphan R.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class LeastCommonMultipleBenchmark {
+
+	private static final MethodHandle LCM = Algorithms.find("LeastCommonMultiple", "lcm", long.class, long.class);
+	private static final MethodHandle LCM_3 = Algorithms.find("LeastCommonMultiple", "lcm", long.class, long.class, long.class);
+	
+	@Param({ "36", "999982" })
+	long a;
+	
+	@Benchmark
+	public long lcm() throws Throwable {
+		return (long) LCM.invokeExact(a, 991776L);
+	}
+	
+	@Benchmark
+	public long lcm3() throws Throwable {
+		return (long) LCM_3.invokeExact(6L, 20L, a);
+	}
+}
@@ -0,0 +1,85 @@
+package mathalgo.bench;
+
+import java.lang.invoke.MethodHandle;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Every sieve of {@code PrimeGenerating}, for the primes below n
+ * 
+ * @author Stéphan R.
+ *
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrimeGeneratingBenchmark {
+
+	private static final MethodHandle PRIME_SIEVE = Algorithms.find("PrimeGenerating", "primeSieve", int.class);
+	private static final MethodHandle BIT_SIEVE = Algorithms.find("PrimeGenerating", "bitSieve", int.class);
+	private static final MethodHandle WHEEL_SIEVE = Algorithms.find("PrimeGenerating", "wheelSieve", int.class);
+	private static final MethodHandle ERATOSTHENES = Algorithms.find("PrimeGenerating", "sieveOfEratosthenes", int.class);
+	private static final MethodHandle SEGMENTED = Algorithms.find("PrimeGenerating", "segmentedSieve", int.class);
+	private static final MethodHandle PARALLEL_SEGMENTED = Algorithms.find("PrimeGenerating", "parallelSegmentedSieve", long.class);
+	private static final MethodHandle SUNDARAM = Algorithms.find("PrimeGenerating", "sieveOfSundaram", int.class);
+	private static final MethodHandle ATKIN = Algorithms.find("PrimeGenerating", "sieveOfAtkin", int.class);
+	
+	@Param({ "100000", "1000000", "10000000" })
+	int n;
+	
+	@Benchmark
+	public Object primeSieve() throws Throwable {
+		return (Object) PRIME_SIEVE.invokeExact(n);
+	}
+	
+	@Benchmark
+	public Object bitSieve() throws Throwable {
+		return (Object) BIT_SIEVE.invokeExact(n);
+	}
+	
+	@Benchmark
+	public Object wheelSieve() throws Throwable {
+		return (Object) WHEEL_SIEVE.invokeExact(n);
+	}
+	
+	@Benchmark
+	public Object sieveOfEratosthenes() throws Throwable {
+		return (Object) ERATOSTHENES.invokeExact(n);
+	}
+	
+	@Benchmark
+	public Object segmentedSieve() throws Throwable {
+		return (Object) SEGMENTED.invokeExact(n);
+	}
+	
+	@Benchmark
+	public Object parallelSegmentedSieve() throws Throwable {
+		return (Object) PARALLEL_SEGMENTED.invokeExact((long) n);
+	}
+	
+	/**
+	 * Sundaram's n is the number of odd candidates, it covers the primes below 2n + 2
+	 */
+	@Benchmark
+	public Object sieveOfSundaram() throws Throwable {
+		return (Object) SUNDARAM.invokeExact(n >> 1);
+	}
+	
+	@Benchmark
+	public Object sieveOfAtkin() throws Throwable {
+		return (Object) ATKIN.invokeExact(n);
+	}
+}
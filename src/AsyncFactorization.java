@@ -0,0 +1,325 @@
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Deadline bounded factorization of a long, racing several methods on every composite.<br /><br />
+ *
+ * <pre>{@code
+ * While a composite cofactor m is left and the deadline has not passed
+ * 	Submit Pollard p - 1, SQUFOF and RACERS Brent lanes, lane i trying the polynomials x^2 + c with c ≡ i (mod RACERS)
+ * 	Keep the first non trivial divisor d, interrupt the other methods
+ * 	Go on with d and m / d
+ * Cofactors still composite at the deadline are returned as they are
+ * }</pre>
+ *
+ * Unlike {@link IntegerFactorization#factorize(long)}, which gives up only after 64 polynomials and
+ * {@link IntegerFactorization#richardBrent(long)}, which may never return, the future always completes by the
+ * deadline (plus the time for the methods to notice the interruption) with a possibly partial {@link Result}.<br /><br />
+ *
+ * The coordinator and the methods run on the same executor, which needs at least RACERS + 3 threads to race at
+ * full width. The default one creates daemon threads on demand.
+ *
+ * @author Stéphan R.
+ *
+ */
+public class AsyncFactorization {
+
+	/**
+	 * Number of Brent lanes raced against Pollard p - 1 and SQUFOF
+	 */
+	static final int RACERS = 3;
+
+	/**
+	 * Polynomials tried on a composite over all the lanes, as in {@link IntegerFactorization}
+	 */
+	private static final int MAX_ATTEMPTS = 64;
+
+	/**
+	 * How often the coordinator checks whether the returned future was cancelled
+	 */
+	private static final long POLL_NANOS = TimeUnit.MILLISECONDS.toNanos(20);
+
+	private static final int TRIAL_LIMIT = 1 << 8;
+
+	private static final int[] SMALL_PRIMES = SharedPrimeTable.shared().snapshot(TRIAL_LIMIT).toArray(TRIAL_LIMIT);
+
+	private static final class DefaultExecutor {
+		static final ExecutorService INSTANCE = Executors.newCachedThreadPool(new ThreadFactory() {
+			private final AtomicInteger count = new AtomicInteger();
+
+			@Override
+			public Thread newThread(Runnable task) {
+				Thread thread = new Thread(task, "factorization-" + count.incrementAndGet());
+
+				thread.setDaemon(true);
+
+				return thread;
+			}
+		});
+	}
+
+	/**
+	 * Outcome of a factorization, complete when no composite cofactor is left
+	 */
+	static final class Result {
+
+		private final long n;
+		private final long[] primes;
+		private final long[] cofactors;
+
+		Result(long n, long[] primes, long[] cofactors) {
+			this.n = n;
+			this.primes = primes;
+			this.cofactors = cofactors;
+		}
+
+		/**
+		 * @return the number factorized
+		 */
+		long number() {
+			return n;
+		}
+
+		/**
+		 * @return the prime factors found, in increasing order and repeated according to their multiplicity
+		 */
+		long[] primes() {
+			return primes.clone();
+		}
+
+		/**
+		 * @return the composite cofactors left at the deadline in increasing order, empty if complete
+		 */
+		long[] cofactors() {
+			return cofactors.clone();
+		}
+
+		/**
+		 * @return true if {@link #primes()} is the whole factorization
+		 */
+		boolean isComplete() {
+			return cofactors.length == 0;
+		}
+
+		@Override
+		public String toString() {
+			return n + " => " + Arrays.toString(primes) + (isComplete() ? "" : " * " + Arrays.toString(cofactors) + " (partial)");
+		}
+	}
+
+	/**
+	 * {@link #factorize(long, long, TimeUnit, ExecutorService)} on a shared pool of daemon threads
+	 */
+	static CompletableFuture<Result> factorize(long n, long timeout, TimeUnit unit) {
+		return factorize(n, timeout, unit, DefaultExecutor.INSTANCE);
+	}
+
+	/**
+	 * Cancelling the returned future stops the work within {@link #POLL_NANOS}.
+	 *
+	 * @param n positive
+	 * @param timeout budget from now
+	 * @param unit
+	 * @param executor runs the coordinator and the methods
+	 *
+	 * @return completes with the factorization, partial if the deadline passed first
+	 */
+	static CompletableFuture<Result> factorize(final long n, long timeout, TimeUnit unit, final ExecutorService executor) {
+		if (n < 1)
+			throw new IllegalArgumentException("Not a positive number: " + n);
+
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		final CompletableFuture<Result> future = new CompletableFuture<Result>();
+
+		executor.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					future.complete(factorize(n, deadline, executor, future));
+				} catch(Throwable e) {
+					future.completeExceptionally(e);
+				}
+			}
+		});
+
+		return future;
+	}
+
+	private static Result factorize(final long number, long deadline, ExecutorService executor, CompletableFuture<Result> future) throws InterruptedException {
+		long n = number;
+		List<Long> primes = new ArrayList<Long>();
+		List<Long> cofactors = new ArrayList<Long>();
+		Deque<Long> pending = new ArrayDeque<Long>();
+		int twos = Long.numberOfTrailingZeros(n);
+
+		for(int i = 0; i < twos; i++) {
+			primes.add(2L);
+		}
+
+		n >>>= twos;
+
+		for(int i = 1; i < SMALL_PRIMES.length && (long) SMALL_PRIMES[i] * SMALL_PRIMES[i] <= n; i++) {
+			int p = SMALL_PRIMES[i];
+
+			while(n % p == 0) {
+				primes.add((long) p);
+				n /= p;
+			}
+		}
+
+		if(n > 1) {
+			pending.push(n);
+		}
+
+		while(!pending.isEmpty()) {
+			long m = pending.pop();
+
+			if(isPrime(m)) {
+				primes.add(m);
+				continue;
+			}
+
+			long d = race(m, deadline, executor, future);
+
+			if(d == 0) {
+				cofactors.add(m);
+
+				// The other pending numbers were never tested, only the composites are cofactors
+				for(long left : pending) {
+					(isPrime(left) ? primes : cofactors).add(left);
+				}
+
+				break;
+			}
+
+			pending.push(d);
+			pending.push(m / d);
+		}
+
+		return new Result(number, unbox(primes), unbox(cofactors));
+	}
+
+	/**
+	 * @return a non trivial divisor of the odd composite m, 0 if the deadline passed or the future was cancelled
+	 */
+	private static long race(final long m, long deadline, ExecutorService executor, CompletableFuture<Result> future) throws InterruptedException {
+		CompletionService<Long> race = new ExecutorCompletionService<Long>(executor);
+		List<Future<Long>> methods = new ArrayList<Future<Long>>(RACERS + 2);
+
+		methods.add(race.submit(new Callable<Long>() {
+			@Override
+			public Long call() {
+				return PollardPMinusOne.findFactor(m);
+			}
+		}));
+
+		methods.add(race.submit(new Callable<Long>() {
+			@Override
+			public Long call() {
+				return SquareFactorization.squfof(m);
+			}
+		}));
+
+		for(int lane = 1; lane <= RACERS; lane++) {
+			final long first = lane;
+
+			methods.add(race.submit(new Callable<Long>() {
+				@Override
+				public Long call() {
+					for(long c = first; c <= MAX_ATTEMPTS; c += RACERS) {
+						long d = IntegerFactorization.brent(m, c, true);
+
+						if(d != m) {
+							return d;
+						}
+					}
+
+					return 0L;
+				}
+			}));
+		}
+
+		try {
+			for(int left = methods.size(); left > 0 && !future.isDone(); ) {
+				long remaining = deadline - System.nanoTime();
+
+				if(remaining <= 0) {
+					return 0;
+				}
+
+				Future<Long> done = race.poll(Math.min(remaining, POLL_NANOS), TimeUnit.NANOSECONDS);
+
+				if(done == null) {
+					continue;
+				}
+
+				left--;
+
+				try {
+					long d = done.get();
+
+					if(d != 0) {
+						return d;
+					}
+				} catch(ExecutionException e) {
+					// A lost method, the others may still win
+				}
+			}
+
+			return 0;
+		} finally {
+			for(Future<Long> method : methods) {
+				method.cancel(true);
+			}
+		}
+	}
+
+	private static boolean isPrime(long m) {
+		return m < TRIAL_LIMIT * TRIAL_LIMIT || MillerRabin.isPrime(m);
+	}
+
+	private static long[] unbox(List<Long> values) {
+		long[] array = new long[values.size()];
+
+		for(int i = 0; i < array.length; i++) {
+			array[i] = values.get(i);
+		}
+
+		Arrays.sort(array);
+
+		return array;
+	}
+
+	/**
+	 * Driver main method
+	 *
+	 * @param args
+	 * @throws Exception
+	 */
+	public static void main(String[] args) throws Exception {
+		long n = 998244353L * 1000000007L * 7;
+
+		long start = System.currentTimeMillis();
+		System.out.println(factorize(n, 1, TimeUnit.SECONDS).get());
+		System.out.println("Racing factorization took " + (System.currentTimeMillis() - start) + "ms\n");
+
+		// No time at all, the small factor is found by trial division and the semiprime is left as it is
+		start = System.currentTimeMillis();
+		System.out.println(factorize(n, 0, TimeUnit.SECONDS).get());
+		System.out.println("Expired factorization took " + (System.currentTimeMillis() - start) + "ms");
+	}
+}
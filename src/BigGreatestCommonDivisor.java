@@ -0,0 +1,509 @@
+import java.math.BigInteger;
+
+/**
+ * https://en.wikipedia.org/wiki/Lehmer%27s_GCD_algorithm
+ * https://gmplib.org/~nisse/archive/S0025-5718-07-02017-0.pdf
+ * https://facthacks.cr.yp.to/batchgcd.html
+ *
+ * GCD and extended GCD of BigIntegers, plus the batch GCD of a set of moduli.<br /><br />
+ *
+ * <pre>{@code
+ * Lehmer:	x, y = the leading 62 bits of a and b (two 31-bit digits), A B C D = identity
+ * 		Run Euclid on x, y while the quotients of (x + A) / (y + C) and (x + B) / (y + D) agree,
+ * 		they are then the quotients of a / b as well
+ * 		(a, b) = (A a + B b, C a + D b), about 30 bits removed with 4 multiplications by a long
+ *
+ * Half GCD:	Above HGCD_THRESHOLD bits, reduce (a, b) of n bits to about n / 2 bits at once
+ * 		M1 = hgcd(top half of a, b)			those quotients are (almost always) quotients of a / b too
+ * 		(a, b) = M1^-1 (a, b)				about 3n / 4 bits left
+ * 		M2 = hgcd(top of a, b) again, down to n / 2
+ * 		The matrices come from products of large numbers, where BigInteger switches to Karatsuba and
+ * 		Toom-Cook, O(M(n) log n) overall instead of the O(n^2) of Euclid and of BigInteger.gcd
+ * }</pre>
+ *
+ * Each matrix computed from truncated numbers is checked on the full ones (a > b > 2^s after applying it) and
+ * dropped when the check fails, so a wrong quotient can only cost time, never give a wrong result.<br /><br />
+ *
+ * The extended GCD only follows the cofactor of a, the one of b is (g - x·a) / b at the end.
+ *
+ * @author Stéphan R.
+ *
+ */
+public class BigGreatestCommonDivisor {
+
+	/**
+	 * Operands below this many bits go to BigInteger.gcd, Lehmer only pays off past a few words
+	 */
+	static final int LEHMER_THRESHOLD = 256;
+
+	/**
+	 * Operands above this many bits are reduced with the half GCD
+	 */
+	static final int HGCD_THRESHOLD = 8192;
+
+	/**
+	 * 2x2 matrix of determinant ±1 with (a, b) = M (α, β), the product of the Euclid steps applied
+	 */
+	private static final class Matrix {
+
+		BigInteger m00 = BigInteger.ONE;
+		BigInteger m01 = BigInteger.ZERO;
+		BigInteger m10 = BigInteger.ZERO;
+		BigInteger m11 = BigInteger.ONE;
+		int determinant = 1;
+
+		/**
+		 * M = M (q 1, 1 0), one quotient of Euclid
+		 */
+		void quotient(BigInteger q) {
+			BigInteger t = m00;
+
+			m00 = m00.multiply(q).add(m01);
+			m01 = t;
+			t = m10;
+			m10 = m10.multiply(q).add(m11);
+			m11 = t;
+			determinant = -determinant;
+		}
+
+		/**
+		 * M = M L^-1 for the forward Lehmer matrix L = (A B, C D) of the given determinant
+		 */
+		void lehmer(long a, long b, long c, long d, int det) {
+			BigInteger n00 = m00.multiply(BigInteger.valueOf(d)).subtract(m01.multiply(BigInteger.valueOf(c)));
+			BigInteger n01 = m01.multiply(BigInteger.valueOf(a)).subtract(m00.multiply(BigInteger.valueOf(b)));
+			BigInteger n10 = m10.multiply(BigInteger.valueOf(d)).subtract(m11.multiply(BigInteger.valueOf(c)));
+			BigInteger n11 = m11.multiply(BigInteger.valueOf(a)).subtract(m10.multiply(BigInteger.valueOf(b)));
+
+			if(det < 0) {
+				n00 = n00.negate();
+				n01 = n01.negate();
+				n10 = n10.negate();
+				n11 = n11.negate();
+			}
+
+			m00 = n00;
+			m01 = n01;
+			m10 = n10;
+			m11 = n11;
+			determinant *= det;
+		}
+
+		/**
+		 * M = M N
+		 */
+		void multiply(Matrix n) {
+			BigInteger n00 = m00.multiply(n.m00).add(m01.multiply(n.m10));
+			BigInteger n01 = m00.multiply(n.m01).add(m01.multiply(n.m11));
+			BigInteger n10 = m10.multiply(n.m00).add(m11.multiply(n.m10));
+			BigInteger n11 = m10.multiply(n.m01).add(m11.multiply(n.m11));
+
+			m00 = n00;
+			m01 = n01;
+			m10 = n10;
+			m11 = n11;
+			determinant *= n.determinant;
+		}
+
+		/**
+		 * @return M^-1 (a, b)
+		 */
+		BigInteger[] solve(BigInteger a, BigInteger b) {
+			BigInteger alpha = m11.multiply(a).subtract(m01.multiply(b));
+			BigInteger beta = m00.multiply(b).subtract(m10.multiply(a));
+
+			return (determinant > 0) ? new BigInteger[] {alpha, beta} : new BigInteger[] {alpha.negate(), beta.negate()};
+		}
+	}
+
+	/**
+	 * @param a
+	 * @param b
+	 * @return the non negative gcd of a and b, 0 if both are 0
+	 */
+	static BigInteger gcd(BigInteger a, BigInteger b) {
+		a = a.abs();
+		b = b.abs();
+
+		if(Math.max(a.bitLength(), b.bitLength()) < LEHMER_THRESHOLD) {
+			return a.gcd(b);
+		}
+
+		return (a.compareTo(b) >= 0) ? reduce(a, b, null) : reduce(b, a, null);
+	}
+
+	/**
+	 * @param a
+	 * @param b
+	 * @return {g, x, y} with g = gcd(a, b) = a·x + b·y
+	 */
+	static BigInteger[] extendedGcd(BigInteger a, BigInteger b) {
+		BigInteger u = a.abs();
+		BigInteger v = b.abs();
+		boolean swap = u.compareTo(v) < 0;
+
+		if(swap) {
+			BigInteger t = u;
+
+			u = v;
+			v = t;
+		}
+
+		BigInteger x;
+		BigInteger y;
+		BigInteger g;
+
+		if(v.signum() == 0) {
+			g = u;
+			x = (u.signum() == 0) ? BigInteger.ZERO : BigInteger.ONE;
+			y = BigInteger.ZERO;
+		} else {
+			BigInteger[] cofactors = {BigInteger.ONE, BigInteger.ZERO};
+
+			g = reduce(u, v, cofactors);
+			x = cofactors[0];
+			y = g.subtract(x.multiply(u)).divide(v);
+		}
+
+		if(swap) {
+			BigInteger t = x;
+
+			x = y;
+			y = t;
+		}
+
+		return new BigInteger[] {g, (a.signum() < 0) ? x.negate() : x, (b.signum() < 0) ? y.negate() : y};
+	}
+
+	/**
+	 * Euclid on a >= b >= 0, each step picks the cheapest reduction that applies
+	 *
+	 * @param cofactors if not null, the coefficients of the original a in the current a and b, updated along
+	 * @return gcd(a, b)
+	 */
+	private static BigInteger reduce(BigInteger a, BigInteger b, BigInteger[] cofactors) {
+		while(b.signum() != 0) {
+			int na = a.bitLength();
+			int nb = b.bitLength();
+
+			if(na <= 62 && cofactors == null) {
+				return BigInteger.valueOf(GreatestCommonDivisor.branchFree(a.longValue(), b.longValue()));
+			}
+
+			if(nb >= HGCD_THRESHOLD && na - nb < 32) {
+				Matrix m = hgcd(a, b);
+
+				if(m != null) {
+					BigInteger[] ab = m.solve(a, b);
+
+					a = ab[0];
+					b = ab[1];
+
+					if(cofactors != null) {
+						BigInteger[] c = m.solve(cofactors[0], cofactors[1]);
+
+						cofactors[0] = c[0];
+						cofactors[1] = c[1];
+					}
+				}
+			} else if(na > 62 && na - nb < 32) {
+				long[] l = lehmer(a, b);
+
+				BigInteger[] ab = (l == null) ? null : new BigInteger[] {combine(l[0], a, l[1], b), combine(l[2], a, l[3], b)};
+
+				if(ab != null && ab[1].signum() >= 0 && ab[0].compareTo(ab[1]) > 0) {
+					a = ab[0];
+					b = ab[1];
+
+					if(cofactors != null) {
+						BigInteger c0 = combine(l[0], cofactors[0], l[1], cofactors[1]);
+
+						cofactors[1] = combine(l[2], cofactors[0], l[3], cofactors[1]);
+						cofactors[0] = c0;
+					}
+
+					continue;
+				}
+			}
+
+			// One plain division step, after a half GCD it gets past the remainder it stopped on
+			if(b.signum() != 0) {
+				BigInteger[] qr = a.divideAndRemainder(b);
+
+				a = b;
+				b = qr[1];
+
+				if(cofactors != null) {
+					BigInteger c1 = cofactors[0].subtract(qr[0].multiply(cofactors[1]));
+
+					cofactors[0] = cofactors[1];
+					cofactors[1] = c1;
+				}
+			}
+		}
+
+		return a;
+	}
+
+	/**
+	 * @return x·a + y·b
+	 */
+	private static BigInteger combine(long x, BigInteger a, long y, BigInteger b) {
+		return a.multiply(BigInteger.valueOf(x)).add(b.multiply(BigInteger.valueOf(y)));
+	}
+
+	/**
+	 * Lehmer's inner loop on the leading 62 bits of a >= b, a at least 63 bits long
+	 *
+	 * @return {A, B, C, D, determinant} the forward matrix of the steps, null if not even one quotient is sure
+	 */
+	private static long[] lehmer(BigInteger a, BigInteger b) {
+		int shift = a.bitLength() - 62;
+		long x = a.shiftRight(shift).longValue();
+		long y = b.shiftRight(shift).longValue();
+		long ca = 1, cb = 0, cc = 0, cd = 1;
+		int det = 1;
+
+		// x and y below 2^62 keep every cofactor below 2^62, no sum overflows
+		while(y + cc != 0 && y + cd != 0) {
+			long q = (x + ca) / (y + cc);
+
+			if(q != (x + cb) / (y + cd)) {
+				break;
+			}
+
+			long t = ca - q * cc;
+
+			ca = cc;
+			cc = t;
+			t = cb - q * cd;
+			cb = cd;
+			cd = t;
+			t = x - q * y;
+			x = y;
+			y = t;
+			det = -det;
+		}
+
+		return (cb == 0) ? null : new long[] {ca, cb, cc, cd, det};
+	}
+
+	/**
+	 * Half GCD: reduce a > b to consecutive remainders α > β of about half the size.
+	 *
+	 * @return M with (a, b) = M (α, β) and α > β > 2^s, s = bits(a) / 2 + 1, such that α mod β < 2^s;
+	 * 	null if no step can be done
+	 */
+	private static Matrix hgcd(BigInteger a, BigInteger b) {
+		if(b.compareTo(a) >= 0) {
+			return null;
+		}
+
+		int n = a.bitLength();
+		int s = (n >> 1) + 1;
+
+		if(b.bitLength() <= s) {
+			return null;
+		}
+
+		Matrix m = new Matrix();
+		BigInteger alpha = a;
+		BigInteger beta = b;
+
+		if(n >= HGCD_THRESHOLD) {
+			int p = n >> 1;
+			Matrix m1 = hgcd(a.shiftRight(p), b.shiftRight(p));
+
+			if(m1 != null) {
+				BigInteger[] ab = m1.solve(a, b);
+
+				if(valid(ab, s)) {
+					m = m1;
+					alpha = ab[0];
+					beta = ab[1];
+				}
+			}
+
+			// One step between both halves
+			BigInteger[] qr = alpha.divideAndRemainder(beta);
+
+			if(qr[1].bitLength() <= s) {
+				return (m.m01.signum() == 0 && m.m10.signum() == 0) ? null : m;
+			}
+
+			m.quotient(qr[0]);
+			alpha = beta;
+			beta = qr[1];
+
+			int p2 = 2 * s - alpha.bitLength();
+			Matrix m2 = (p2 > 0) ? hgcd(alpha.shiftRight(p2), beta.shiftRight(p2)) : null;
+
+			if(m2 != null) {
+				BigInteger[] ab = m2.solve(alpha, beta);
+
+				if(valid(ab, s)) {
+					m.multiply(m2);
+					alpha = ab[0];
+					beta = ab[1];
+				}
+			}
+		} else {
+			// Lehmer steps as long as they keep well above 2^s, each one checked
+			while(alpha.bitLength() > s + 64 && alpha.bitLength() - beta.bitLength() < 32) {
+				long[] l = lehmer(alpha, beta);
+
+				if(l == null) {
+					break;
+				}
+
+				BigInteger[] ab = {combine(l[0], alpha, l[1], beta), combine(l[2], alpha, l[3], beta)};
+
+				if(!valid(ab, s)) {
+					break;
+				}
+
+				m.lehmer(l[0], l[1], l[2], l[3], (int) l[4]);
+				alpha = ab[0];
+				beta = ab[1];
+			}
+		}
+
+		// Plain steps up to the first remainder below 2^s
+		while(true) {
+			BigInteger[] qr = alpha.divideAndRemainder(beta);
+
+			if(qr[1].bitLength() <= s) {
+				break;
+			}
+
+			m.quotient(qr[0]);
+			alpha = beta;
+			beta = qr[1];
+		}
+
+		return (alpha == a) ? null : m;
+	}
+
+	/**
+	 * @return true if α > β > 2^s
+	 */
+	private static boolean valid(BigInteger[] ab, int s) {
+		return ab[1].bitLength() > s && ab[0].compareTo(ab[1]) > 0;
+	}
+
+	/**
+	 * Bernstein's batch GCD: the gcd of each modulus with the product of all the others, in quasi linear time.
+	 * A result other than 1 is a factor shared with another modulus, or the modulus itself when it shares all
+	 * of its factors (duplicates for instance).
+	 *
+	 * <pre>{@code
+	 * P = product tree of the moduli, the root is N1·N2·...·Nk
+	 * Remainder tree: each node gets (its parent's remainder) mod node^2
+	 * At leaf i, r = P mod Ni^2, and gcd(Ni, r / Ni) = gcd(Ni, P / Ni)
+	 * }</pre>
+	 *
+	 * @param moduli positive numbers
+	 * @return gcd(Ni, product of the others) for every i
+	 */
+	static BigInteger[] batchGcd(BigInteger[] moduli) {
+		int k = moduli.length;
+
+		for(BigInteger modulus : moduli) {
+			if (modulus.signum() <= 0)
+				throw new IllegalArgumentException("Not a positive modulus: " + modulus);
+		}
+
+		if(k == 0) {
+			return new BigInteger[0];
+		}
+
+		int levels = 1;
+
+		for(int width = k; width > 1; width = (width + 1) >>> 1) {
+			levels++;
+		}
+
+		BigInteger[][] tree = new BigInteger[levels][];
+
+		tree[0] = moduli.clone();
+
+		for(int level = 1; level < levels; level++) {
+			BigInteger[] below = tree[level - 1];
+			BigInteger[] nodes = new BigInteger[(below.length + 1) >>> 1];
+
+			for(int i = 0; i < nodes.length; i++) {
+				nodes[i] = (2 * i + 1 < below.length) ? below[2 * i].multiply(below[2 * i + 1]) : below[2 * i];
+			}
+
+			tree[level] = nodes;
+		}
+
+		BigInteger[] remainders = tree[levels - 1];
+
+		for(int level = levels - 2; level >= 0; level--) {
+			BigInteger[] nodes = tree[level];
+			BigInteger[] next = new BigInteger[nodes.length];
+
+			for(int i = 0; i < nodes.length; i++) {
+				next[i] = remainders[i >>> 1].mod(nodes[i].multiply(nodes[i]));
+			}
+
+			remainders = next;
+		}
+
+		BigInteger[] gcds = new BigInteger[k];
+
+		for(int i = 0; i < k; i++) {
+			gcds[i] = gcd(moduli[i], remainders[i].divide(moduli[i]));
+		}
+
+		return gcds;
+	}
+
+	/**
+	 * Driver main method
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		java.util.Random rand = new java.util.Random(42);
+		BigInteger common = BigInteger.probablePrime(1000, rand);
+		BigInteger a = new BigInteger(200_000, rand).multiply(common);
+		BigInteger b = new BigInteger(200_000, rand).multiply(common);
+
+		long start = System.currentTimeMillis();
+		System.out.println("GCD has " + a.gcd(b).bitLength() + " bits");
+		System.out.println("BigInteger.gcd took " + (System.currentTimeMillis() - start) + "ms\n");
+
+		start = System.currentTimeMillis();
+		System.out.println("GCD has " + gcd(a, b).bitLength() + " bits");
+		System.out.println("Half GCD took " + (System.currentTimeMillis() - start) + "ms\n");
+
+		start = System.currentTimeMillis();
+		BigInteger[] bezout = extendedGcd(a, b);
+		System.out.println("Bezout identity holds => " + a.multiply(bezout[1]).add(b.multiply(bezout[2])).equals(bezout[0]));
+		System.out.println("Extended half GCD took " + (System.currentTimeMillis() - start) + "ms\n");
+
+		// 200 RSA moduli of 1024 bits, two of them sharing a prime
+		BigInteger[] moduli = new BigInteger[200];
+
+		for(int i = 0; i < moduli.length; i++) {
+			moduli[i] = BigInteger.probablePrime(512, rand).multiply(BigInteger.probablePrime(512, rand));
+		}
+
+		BigInteger shared = BigInteger.probablePrime(512, rand);
+		moduli[17] = shared.multiply(BigInteger.probablePrime(512, rand));
+		moduli[123] = shared.multiply(BigInteger.probablePrime(512, rand));
+
+		start = System.currentTimeMillis();
+		BigInteger[] gcds = batchGcd(moduli);
+
+		for(int i = 0; i < gcds.length; i++) {
+			if(!gcds[i].equals(BigInteger.ONE)) {
+				System.out.println("Modulus " + i + " shares a " + gcds[i].bitLength() + "-bit factor");
+			}
+		}
+
+		System.out.println("Batch GCD took " + (System.currentTimeMillis() - start) + "ms");
+	}
+}
@@ -0,0 +1,452 @@
+import java.math.BigInteger;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * https://en.wikipedia.org/wiki/Lenstra_elliptic-curve_factorization
+ * https://en.wikipedia.org/wiki/Montgomery_curve
+ * https://members.loria.fr/PZimmermann/records/ecm/params.html
+ *
+ * Lenstra's elliptic curve method (ECM) for BigInteger.<br /><br />
+ *
+ * A curve modulo n is also a curve modulo every prime p dividing n, whose group has an order close to p but
+ * otherwise random. When that order is B1-smooth (all primes below B1) except for at most one prime below B2,
+ * multiplying a point by every prime power below B1 then by that last prime gives the point at infinity
+ * modulo p, and gcd(Z, n) reveals p.
+ *
+ * <pre>{@code
+ * For each curve, on as many workers as the pool has threads
+ * 	Pick By^2 = x^3 + Ax^2 + x and a point Q with Suyama's parametrization of sigma
+ * 	Stage 1:	Q = [k]Q with k the product of the prime powers below B1, Montgomery ladder on (X : Z) only
+ * 	Stage 2:	For each prime B1 < p = mD ± j <= B2
+ * 				accumulate X([mD]Q) * Z([j]Q) - X([j]Q) * Z([mD]Q), zero mod p when [p]Q is at infinity
+ * 				with the giant steps [mD]Q and the baby steps [j]Q, j < D / 2 coprime to D
+ * 	Stop every worker as soon as one curve finds a factor
+ * }</pre>
+ *
+ * Primes come from the {@link SharedPrimeTable}.
+ *
+ * @author Stéphan R.
+ *
+ */
+public class EllipticCurveMethod {
+
+	/**
+	 * Optimal B1 and expected number of curves for factors of 15 to 35 digits, B2 is 100 * B1
+	 */
+	private static final int[][] LEVELS = {
+		{ 15, 2_000, 25 },
+		{ 20, 11_000, 90 },
+		{ 25, 50_000, 300 },
+		{ 30, 250_000, 700 },
+		{ 35, 1_000_000, 1_800 }
+	};
+
+	/**
+	 * Giant step of stage 2, 2 * 3 * 5 * 7 * 11
+	 */
+	private static final int D = 2310;
+
+	/**
+	 * Primes below this bound are removed by trial division in {@link #factor(BigInteger)}
+	 */
+	private static final int TRIAL_LIMIT = 1 << 12;
+
+	/**
+	 * Certainty of {@link BigInteger#isProbablePrime(int)}, the error probability is below 2^-100
+	 */
+	static final int PRIME_CERTAINTY = 100;
+
+	/**
+	 * First sigma of the next search, so that two searches never try the same curves
+	 */
+	private static final AtomicInteger SIGMA = new AtomicInteger(6);
+
+	private static final BigInteger THREE = BigInteger.valueOf(3);
+	private static final BigInteger FIVE = BigInteger.valueOf(5);
+	private static final BigInteger SIXTEEN = BigInteger.valueOf(16);
+
+	/**
+	 * Complete factorization, the factors are probable primes
+	 *
+	 * @param n positive
+	 *
+	 * @return the prime factors of n in increasing order, repeated according to their multiplicity
+	 *
+	 * @throws ArithmeticException if a factor of more than 35 digits is left
+	 */
+	static BigInteger[] factor(BigInteger n) {
+		if (n.signum() <= 0)
+			throw new IllegalArgumentException("Not a positive number: " + n);
+
+		List<BigInteger> factors = new ArrayList<BigInteger>();
+		Deque<BigInteger> composites = new ArrayDeque<BigInteger>();
+
+		for(int p : SharedPrimeTable.shared().snapshot(TRIAL_LIMIT).toArray(TRIAL_LIMIT)) {
+			BigInteger prime = BigInteger.valueOf(p);
+
+			while(n.mod(prime).signum() == 0) {
+				factors.add(prime);
+				n = n.divide(prime);
+			}
+		}
+
+		if(!n.equals(BigInteger.ONE)) {
+			composites.push(n);
+		}
+
+		while(!composites.isEmpty()) {
+			BigInteger m = composites.pop();
+
+			if(m.bitLength() < 63) {
+				for(long factor : IntegerFactorization.factorize(m.longValue())) {
+					factors.add(BigInteger.valueOf(factor));
+				}
+			} else if(m.isProbablePrime(PRIME_CERTAINTY)) {
+				factors.add(m);
+			} else {
+				// The curves cannot split a prime power, its root comes at once
+				BigInteger d = QuadraticSieve.perfectPower(m);
+
+				if(d == null) {
+					d = findFactor(m);
+				}
+
+				composites.push(d);
+				composites.push(m.divide(d));
+			}
+		}
+
+		Collections.sort(factors);
+
+		return factors.toArray(new BigInteger[factors.size()]);
+	}
+
+	/**
+	 * Run the levels of {@link #LEVELS} in turn on the common {@link ForkJoinPool}
+	 *
+	 * @param n composite, not a prime power
+	 *
+	 * @return a non trivial factor of n
+	 *
+	 * @throws ArithmeticException if none was found up to 35 digits
+	 */
+	static BigInteger findFactor(BigInteger n) {
+		for(int[] level : LEVELS) {
+			BigInteger factor = findFactor(n, level[1], 100 * level[1], level[2], ForkJoinPool.commonPool());
+
+			if(factor != null) {
+				return factor;
+			}
+		}
+
+		throw new ArithmeticException("No factor of " + n + " below " + LEVELS[LEVELS.length - 1][0] + " digits");
+	}
+
+	/**
+	 * Try up to curves curves, spread over the workers of pool. Each worker checks a shared result between
+	 * two primes and returns as soon as any curve succeeded.
+	 *
+	 * @param n odd composite
+	 * @param b1 stage 1 bound
+	 * @param b2 stage 2 bound, below 2^31
+	 * @param curves
+	 * @param pool
+	 *
+	 * @return a non trivial factor of n, or null if every curve failed
+	 */
+	static BigInteger findFactor(final BigInteger n, int b1, int b2, final int curves, ForkJoinPool pool) {
+		if (b1 < 2 || b2 < b1 || b2 == Integer.MAX_VALUE)
+			throw new IllegalArgumentException("Invalid bounds B1 = " + b1 + ", B2 = " + b2);
+
+		final PrimeBitSet primes = SharedPrimeTable.shared().snapshot(b2 + 1);
+		final int[] stage1 = primes.toArray(b1 + 1);
+		final int bound1 = b1;
+		final int bound2 = b2;
+		final int sigma = SIGMA.getAndAdd(curves);
+		final AtomicInteger next = new AtomicInteger();
+		final AtomicReference<BigInteger> found = new AtomicReference<BigInteger>();
+		List<Future<?>> workers = new ArrayList<Future<?>>();
+
+		for(int w = Math.min(pool.getParallelism(), curves); w > 0; w--) {
+			workers.add(pool.submit(new Runnable() {
+				@Override
+				public void run() {
+					for(int c = next.getAndIncrement(); c < curves && found.get() == null; c = next.getAndIncrement()) {
+						BigInteger factor = new Curve(n, sigma + c, found).run(stage1, primes, bound1, bound2);
+
+						if(factor != null) {
+							found.compareAndSet(null, factor);
+						}
+					}
+				}
+			}));
+		}
+
+		try {
+			for(Future<?> worker : workers) {
+				worker.get();
+			}
+		} catch (InterruptedException e) {
+			Thread.currentThread().interrupt();
+			found.compareAndSet(null, BigInteger.ZERO);
+		} catch (ExecutionException e) {
+			throw new IllegalStateException("ECM worker failed", e.getCause());
+		}
+
+		BigInteger factor = found.get();
+
+		return (factor == null || factor.signum() == 0) ? null : factor;
+	}
+
+	/**
+	 * One curve modulo n, points are kept in projective (X : Z) coordinates as pairs of BigInteger
+	 */
+	private static final class Curve {
+
+		private final BigInteger n;
+		private final long sigma;
+		private final AtomicReference<BigInteger> found;
+
+		/**
+		 * (A + 2) / 4 mod n
+		 */
+		private BigInteger a24;
+
+		Curve(BigInteger n, long sigma, AtomicReference<BigInteger> found) {
+			this.n = n;
+			this.sigma = sigma;
+			this.found = found;
+		}
+
+		/**
+		 * @return a non trivial factor of n, or null if this curve failed or another one succeeded
+		 */
+		BigInteger run(int[] stage1, PrimeBitSet primes, int b1, int b2) {
+			// Suyama's parametrization: the group order is divisible by 12
+			BigInteger s = BigInteger.valueOf(sigma);
+			BigInteger u = s.multiply(s).subtract(FIVE).mod(n);
+			BigInteger v = s.shiftLeft(2).mod(n);
+			BigInteger u3 = u.multiply(u).multiply(u).mod(n);
+			BigInteger vu = v.subtract(u);
+			BigInteger numerator = vu.multiply(vu).multiply(vu).multiply(u.multiply(THREE).add(v)).mod(n);
+			BigInteger denominator = SIXTEEN.multiply(u3).multiply(v).mod(n);
+			BigInteger g = denominator.gcd(n);
+
+			if(!g.equals(BigInteger.ONE)) {
+				return nonTrivial(g);
+			}
+
+			a24 = numerator.multiply(denominator.modInverse(n)).mod(n);
+
+			BigInteger[] q = { u3, v.multiply(v).multiply(v).mod(n) };
+
+			// Stage 1
+			for(int p : stage1) {
+				if(found.get() != null) {
+					return null;
+				}
+
+				long power = p;
+
+				while(power * p <= b1) {
+					power *= p;
+				}
+
+				q = multiply(q, power);
+			}
+
+			g = q[1].gcd(n);
+
+			if(!g.equals(BigInteger.ONE)) {
+				return nonTrivial(g);
+			}
+
+			return stage2(q, primes, b1, b2);
+		}
+
+		/**
+		 * Baby steps [j]Q for the odd j < D / 2 coprime to D, normalized to Z = 1 with one inversion. Giant steps
+		 * [mD]Q from [m0 D]Q and [(m0 + 1) D]Q with differential additions.
+		 */
+		private BigInteger stage2(BigInteger[] q, PrimeBitSet primes, int b1, int b2) {
+			int half = D / 2;
+			BigInteger[][] odd = new BigInteger[half][];
+			BigInteger[] twice = doubling(q);
+
+			odd[1] = q;
+			odd[3] = add(twice, q, q);
+
+			for(int j = 5; j < half; j += 2) {
+				odd[j] = add(odd[j - 2], twice, odd[j - 4]);
+			}
+
+			int[] babies = new int[half];
+			int count = 0;
+
+			for(int j = 1; j < half; j += 2) {
+				if(j % 3 != 0 && j % 5 != 0 && j % 7 != 0 && j % 11 != 0) {
+					babies[count++] = j;
+				}
+			}
+
+			// Montgomery's trick: invert every Z with a single modInverse
+			BigInteger[] prefix = new BigInteger[count + 1];
+			prefix[0] = BigInteger.ONE;
+
+			for(int k = 0; k < count; k++) {
+				prefix[k + 1] = prefix[k].multiply(odd[babies[k]][1]).mod(n);
+			}
+
+			BigInteger g = prefix[count].gcd(n);
+
+			if(!g.equals(BigInteger.ONE)) {
+				return nonTrivial(g);
+			}
+
+			BigInteger inverse = prefix[count].modInverse(n);
+			BigInteger[] x = new BigInteger[count];
+
+			for(int k = count - 1; k >= 0; k--) {
+				BigInteger[] point = odd[babies[k]];
+
+				x[k] = point[0].multiply(inverse).mod(n).multiply(prefix[k]).mod(n);
+				inverse = inverse.multiply(point[1]).mod(n);
+			}
+
+			int m = Math.max(1, b1 / D);
+			BigInteger[] step = multiply(q, D);
+			BigInteger[] previous = multiply(q, (long) m * D);
+			BigInteger[] current = multiply(q, (long) (m + 1) * D);
+			BigInteger product = BigInteger.ONE;
+
+			for(BigInteger[] giant = previous; (long) m * D - half <= b2; m++) {
+				if(found.get() != null) {
+					return null;
+				}
+
+				long center = (long) m * D;
+				boolean used = false;
+
+				for(int k = 0; k < count; k++) {
+					if(isPrime(primes, center - babies[k], b1, b2) || isPrime(primes, center + babies[k], b1, b2)) {
+						product = product.multiply(giant[0].subtract(x[k].multiply(giant[1]))).mod(n);
+						used = true;
+					}
+				}
+
+				if(used && product.signum() == 0) {
+					return null;
+				}
+
+				if(giant == previous) {
+					giant = current;
+				} else {
+					BigInteger[] next = add(current, step, previous);
+
+					previous = current;
+					current = next;
+					giant = current;
+				}
+			}
+
+			return nonTrivial(product.gcd(n));
+		}
+
+		private BigInteger nonTrivial(BigInteger g) {
+			return (g.equals(BigInteger.ONE) || g.equals(n)) ? null : g;
+		}
+
+		private static boolean isPrime(PrimeBitSet primes, long p, int b1, int b2) {
+			return p > b1 && p <= b2 && primes.isPrime((int) p);
+		}
+
+		/**
+		 * Montgomery ladder: [k]P with one doubling and one differential addition per bit
+		 *
+		 * @param p
+		 * @param k positive
+		 * @return
+		 */
+		private BigInteger[] multiply(BigInteger[] p, long k) {
+			BigInteger[] r0 = p;
+			BigInteger[] r1 = doubling(p);
+
+			for(int bit = 62 - Long.numberOfLeadingZeros(k); bit >= 0; bit--) {
+				if(((k >>> bit) & 1) != 0) {
+					r0 = add(r1, r0, p);
+					r1 = doubling(r1);
+				} else {
+					r1 = add(r0, r1, p);
+					r0 = doubling(r0);
+				}
+			}
+
+			return r0;
+		}
+
+		/**
+		 * <pre>{@code
+		 * X2 = (X + Z)^2 (X - Z)^2
+		 * Z2 = 4XZ ((X - Z)^2 + a24 4XZ)		with 4XZ = (X + Z)^2 - (X - Z)^2
+		 * }</pre>
+		 */
+		private BigInteger[] doubling(BigInteger[] p) {
+			BigInteger sum = p[0].add(p[1]);
+			BigInteger difference = p[0].subtract(p[1]);
+			BigInteger s2 = sum.multiply(sum).mod(n);
+			BigInteger d2 = difference.multiply(difference).mod(n);
+			BigInteger t = s2.subtract(d2);
+
+			return new BigInteger[] { s2.multiply(d2).mod(n), t.multiply(d2.add(a24.multiply(t))).mod(n) };
+		}
+
+		/**
+		 * Differential addition
+		 *
+		 * <pre>{@code
+		 * X(P + Q) = Z(P - Q) [(XP - ZP)(XQ + ZQ) + (XP + ZP)(XQ - ZQ)]^2
+		 * Z(P + Q) = X(P - Q) [(XP - ZP)(XQ + ZQ) - (XP + ZP)(XQ - ZQ)]^2
+		 * }</pre>
+		 */
+		private BigInteger[] add(BigInteger[] p, BigInteger[] q, BigInteger[] difference) {
+			BigInteger u = p[0].subtract(p[1]).multiply(q[0].add(q[1]));
+			BigInteger v = p[0].add(p[1]).multiply(q[0].subtract(q[1]));
+			BigInteger plus = u.add(v).mod(n);
+			BigInteger minus = u.subtract(v).mod(n);
+
+			return new BigInteger[] { difference[1].multiply(plus.multiply(plus)).mod(n), difference[0].multiply(minus.multiply(minus)).mod(n) };
+		}
+	}
+
+	/**
+	 * Driver main method
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		BigInteger p = BigInteger.TEN.pow(15).nextProbablePrime();
+		BigInteger q = BigInteger.TEN.pow(18).nextProbablePrime();
+		BigInteger n = BigInteger.TEN.pow(40).nextProbablePrime().multiply(p).multiply(q);
+
+		long start = System.currentTimeMillis();
+		System.out.println("Prime Factors => " + Arrays.toString(factor(n)));
+		System.out.println("ECM took " + (System.currentTimeMillis() - start) + "ms\n");
+
+		// The square of a 40 digit prime, split by its root without any curve
+		n = BigInteger.TEN.pow(40).nextProbablePrime().pow(2).multiply(BigInteger.valueOf(7));
+
+		start = System.currentTimeMillis();
+		System.out.println("Prime Factors => " + Arrays.toString(factor(n)));
+		System.out.println("Prime power took " + (System.currentTimeMillis() - start) + "ms");
+	}
+}
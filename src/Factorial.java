@@ -76,19 +76,26 @@ public class Factorial {
 	 * @return the factorial number of n
 	 */
 	static BigInteger primeFactorization(int n) {
-		BigInteger factorial = BigInteger.valueOf(1);
-		boolean[] tab = new boolean[n + 1];
+		return primeFactorization(n, SharedPrimeTable.shared().snapshot(n + 1));
+	}
+	
+	/**
+	 * Same as {@link #primeFactorization(int)} with the primes read from an existing table, e.g. a
+	 * {@link MappedPrimeTable}, instead of being sieved on every call
+	 * 
+	 * @param n
+	 * @param primes a table whose limit is greater than n
+	 * 
+	 * @return the factorial number of n
+	 */
+	static BigInteger primeFactorization(int n, PrimeTable primes) {
+		if (primes.limit() <= n)
+			throw new IllegalArgumentException("Prime table limit " + primes.limit() + " does not cover " + n);
 		
-		for(int i = 2; i < Math.sqrt(tab.length); i++) {
-			if(!tab[i]) {
-				for(int j = (i * i); j < tab.length; j += i) {
-					tab[j] = true;
-				}
-			}
-		}
+		BigInteger factorial = BigInteger.valueOf(1);
 		
-		for(int i = 2; i < tab.length; i++) {
-			if(!tab[i]) {
+		for(int i = 2; i <= n; i++) {
+			if(primes.isPrime(i)) {
 				int r = n;
 				int power = 0;
 				
@@ -0,0 +1,62 @@
+
+/**
+ * Prime factorizations of a batch of numbers, see {@link IntegerFactorization#factorizeAll(long[])}.<br /><br />
+ *
+ * Results are laid out as a structure of arrays instead of one object per number:
+ *
+ * <pre>{@code
+ * The distinct primes of input i, in increasing order, are
+ * 	primes[offsets[i]], ..., primes[offsets[i + 1] - 1]
+ * and exponents[k] is the multiplicity of primes[k]
+ * }</pre>
+ *
+ * A factorization of 1 has no prime. The arrays are shared, not copied: do not modify them.
+ *
+ * @author Stéphan R.
+ *
+ */
+public class FactorizationBatch {
+
+	final int[] offsets;
+	final long[] primes;
+	final byte[] exponents;
+
+	FactorizationBatch(int[] offsets, long[] primes, byte[] exponents) {
+		this.offsets = offsets;
+		this.primes = primes;
+		this.exponents = exponents;
+	}
+
+	/**
+	 * @return the number of factorized inputs
+	 */
+	int size() {
+		return offsets.length - 1;
+	}
+
+	/**
+	 * @param i
+	 * @return the number of distinct primes dividing input i
+	 */
+	int count(int i) {
+		return offsets[i + 1] - offsets[i];
+	}
+
+	/**
+	 * @param i
+	 * @param k in [0, count(i))
+	 * @return the k-th smallest prime dividing input i
+	 */
+	long prime(int i, int k) {
+		return primes[offsets[i] + k];
+	}
+
+	/**
+	 * @param i
+	 * @param k in [0, count(i))
+	 * @return the multiplicity of {@code prime(i, k)}
+	 */
+	int exponent(int i, int k) {
+		return exponents[offsets[i] + k];
+	}
+}
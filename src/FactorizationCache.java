@@ -0,0 +1,449 @@
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Bounded concurrent cache of factorizations, in front of {@link IntegerFactorization#factorize(long)}.<br /><br />
+ *
+ * <pre>{@code
+ * The keys are spread over 2^k shards, each one guarded by its own lock and holding
+ * 	- an open addressing hash table (linear probing) from the primitive long key to an entry index
+ * 	- parallel arrays for the entries: key, packed value, previous and next in LRU order
+ * 	- the total weight of its entries, the least recently used ones are evicted beyond weight limit / 2^k
+ * }</pre>
+ *
+ * Values are stored packed in a single long[]: the distinct primes, then their exponents 8 bits each, 8 per long.
+ * An entry weighs {@link #ENTRY_OVERHEAD} bytes plus 8 bytes per long of its packed value, so a number with 3
+ * distinct prime factors costs 80 bytes.<br /><br />
+ *
+ * Two threads missing the same key at the same time both factorize it, the factorization itself runs outside
+ * of any lock.
+ *
+ * @author Stéphan R.
+ *
+ */
+public class FactorizationCache {
+
+	/**
+	 * Estimated bytes per entry besides its packed value: key, links, hash slots, array header and reference
+	 */
+	static final int ENTRY_OVERHEAD = 48;
+
+	private final Shard[] shards;
+	private final int shift;
+
+	private final LongAdder hits = new LongAdder();
+	private final LongAdder misses = new LongAdder();
+	private final LongAdder evictions = new LongAdder();
+
+	/**
+	 * @param maxWeight the limit in bytes, see {@link #weight()}
+	 */
+	FactorizationCache(long maxWeight) {
+		this(maxWeight, Integer.highestOneBit(Math.min(64, 4 * Runtime.getRuntime().availableProcessors())));
+	}
+
+	/**
+	 * @param maxWeight the limit in bytes, see {@link #weight()}
+	 * @param shards a power of two, more shards mean less contention
+	 */
+	FactorizationCache(long maxWeight, int shards) {
+		if (maxWeight <= 0)
+			throw new IllegalArgumentException("Invalid weight limit " + maxWeight);
+
+		if (shards <= 0 || Integer.bitCount(shards) != 1)
+			throw new IllegalArgumentException("The number of shards must be a power of two: " + shards);
+
+		this.shards = new Shard[shards];
+		this.shift = 64 - Integer.numberOfTrailingZeros(shards);
+
+		for(int i = 0; i < shards; i++) {
+			this.shards[i] = new Shard(Math.max(1, maxWeight / shards));
+		}
+	}
+
+	/**
+	 * Same result as {@link IntegerFactorization#factorize(long)}, read from the cache when possible
+	 *
+	 * @param n positive
+	 * @return the prime factors of n in increasing order, repeated according to their multiplicity
+	 */
+	long[] factorize(long n) {
+		long hash = mix(n);
+		Shard shard = shards[(shift == 64) ? 0 : (int) (hash >>> shift)];
+		long[] packed = shard.get(n, (int) hash);
+
+		if(packed != null) {
+			hits.increment();
+
+			return unpack(packed);
+		}
+
+		misses.increment();
+
+		long[] factors = IntegerFactorization.factorize(n);
+
+		evictions.add(shard.put(n, (int) hash, pack(factors)));
+
+		return factors;
+	}
+
+	/**
+	 * @return the number of lookups answered from the cache
+	 */
+	long hits() {
+		return hits.sum();
+	}
+
+	/**
+	 * @return the number of lookups that had to factorize
+	 */
+	long misses() {
+		return misses.sum();
+	}
+
+	/**
+	 * @return the number of entries evicted to stay below the weight limit
+	 */
+	long evictions() {
+		return evictions.sum();
+	}
+
+	/**
+	 * @return the number of cached factorizations
+	 */
+	int size() {
+		int size = 0;
+
+		for(Shard shard : shards) {
+			synchronized(shard) {
+				size += shard.size;
+			}
+		}
+
+		return size;
+	}
+
+	/**
+	 * @return the estimated number of bytes held by the entries
+	 */
+	long weight() {
+		long weight = 0;
+
+		for(Shard shard : shards) {
+			synchronized(shard) {
+				weight += shard.weight;
+			}
+		}
+
+		return weight;
+	}
+
+	@Override
+	public String toString() {
+		return "FactorizationCache[size=" + size() + ", weight=" + weight() + ", hits=" + hits() + ", misses=" + misses() + ", evictions=" + evictions() + "]";
+	}
+
+	/**
+	 * MurmurHash3 finalizer, the high bits pick the shard and the low bits the slot
+	 */
+	private static long mix(long key) {
+		key ^= key >>> 33;
+		key *= 0xff51afd7ed558ccdL;
+		key ^= key >>> 33;
+		key *= 0xc4ceb9fe1a85ec53L;
+		key ^= key >>> 33;
+
+		return key;
+	}
+
+	/**
+	 * @param factors sorted prime factors
+	 * @return the distinct primes followed by their exponents, 8 bits each
+	 */
+	static long[] pack(long[] factors) {
+		int distinct = 0;
+
+		for(int i = 0; i < factors.length; i++) {
+			if(i == 0 || factors[i] != factors[i - 1]) {
+				distinct++;
+			}
+		}
+
+		long[] packed = new long[distinct + ((distinct + 7) >>> 3)];
+		int k = -1;
+
+		for(int i = 0; i < factors.length; i++) {
+			if(i == 0 || factors[i] != factors[i - 1]) {
+				packed[++k] = factors[i];
+			}
+
+			packed[distinct + (k >>> 3)] += 1L << ((k & 7) << 3);
+		}
+
+		return packed;
+	}
+
+	/**
+	 * @param packed see {@link #pack(long[])}
+	 * @return the sorted prime factors
+	 */
+	static long[] unpack(long[] packed) {
+		int distinct = packed.length - ((packed.length + 8) / 9);
+		int count = 0;
+
+		for(int k = 0; k < distinct; k++) {
+			count += exponent(packed, distinct, k);
+		}
+
+		long[] factors = new long[count];
+		int index = 0;
+
+		for(int k = 0; k < distinct; k++) {
+			for(int e = exponent(packed, distinct, k); e > 0; e--) {
+				factors[index++] = packed[k];
+			}
+		}
+
+		return factors;
+	}
+
+	private static int exponent(long[] packed, int distinct, int k) {
+		return (int) ((packed[distinct + (k >>> 3)] >>> ((k & 7) << 3)) & 0xFF);
+	}
+
+	/**
+	 * One LRU cache, every method is called with the shard locked
+	 */
+	private static final class Shard {
+
+		private static final int EMPTY = -1;
+
+		private final long maxWeight;
+
+		/**
+		 * Slot to entry index, EMPTY if free
+		 */
+		private int[] table = new int[16];
+
+		private long[] keys = new long[8];
+		private long[][] values = new long[8][];
+		private int[] previous = new int[8];
+		private int[] next = new int[8];
+
+		/**
+		 * Most and least recently used entries
+		 */
+		private int head = EMPTY;
+		private int tail = EMPTY;
+
+		/**
+		 * Recycled entry indices, chained through next
+		 */
+		private int free = EMPTY;
+		private int allocated;
+
+		int size;
+		long weight;
+
+		Shard(long maxWeight) {
+			this.maxWeight = maxWeight;
+			Arrays.fill(table, EMPTY);
+		}
+
+		synchronized long[] get(long key, int hash) {
+			int entry = find(key, hash);
+
+			if(entry == EMPTY) {
+				return null;
+			}
+
+			unlink(entry);
+			linkFirst(entry);
+
+			return values[entry];
+		}
+
+		/**
+		 * @return the number of evicted entries
+		 */
+		synchronized int put(long key, int hash, long[] value) {
+			int entry = find(key, hash);
+
+			if(entry != EMPTY) {
+				weight += weigh(value) - weigh(values[entry]);
+				values[entry] = value;
+				unlink(entry);
+				linkFirst(entry);
+			} else {
+				entry = allocate();
+				keys[entry] = key;
+				values[entry] = value;
+				weight += weigh(value);
+				size++;
+				linkFirst(entry);
+
+				if(size * 2 > table.length) {
+					rehash(table.length * 2);
+				} else {
+					insert(entry, hash);
+				}
+			}
+
+			int evicted = 0;
+
+			// The entry just added always stays, even when it weighs more than the whole shard
+			while(weight > maxWeight && tail != head) {
+				remove(tail);
+				evicted++;
+			}
+
+			return evicted;
+		}
+
+		private static long weigh(long[] value) {
+			return ENTRY_OVERHEAD + ((long) value.length << 3);
+		}
+
+		private int find(long key, int hash) {
+			int mask = table.length - 1;
+
+			for(int slot = hash & mask; table[slot] != EMPTY; slot = (slot + 1) & mask) {
+				if(keys[table[slot]] == key) {
+					return table[slot];
+				}
+			}
+
+			return EMPTY;
+		}
+
+		private void insert(int entry, int hash) {
+			int mask = table.length - 1;
+			int slot = hash & mask;
+
+			while(table[slot] != EMPTY) {
+				slot = (slot + 1) & mask;
+			}
+
+			table[slot] = entry;
+		}
+
+		private void rehash(int capacity) {
+			table = new int[capacity];
+			Arrays.fill(table, EMPTY);
+
+			for(int entry = head; entry != EMPTY; entry = next[entry]) {
+				insert(entry, (int) mix(keys[entry]));
+			}
+		}
+
+		private int allocate() {
+			if(free != EMPTY) {
+				int entry = free;
+
+				free = next[entry];
+
+				return entry;
+			}
+
+			if(allocated == keys.length) {
+				int capacity = keys.length * 2;
+
+				keys = Arrays.copyOf(keys, capacity);
+				values = Arrays.copyOf(values, capacity);
+				previous = Arrays.copyOf(previous, capacity);
+				next = Arrays.copyOf(next, capacity);
+			}
+
+			return allocated++;
+		}
+
+		/**
+		 * Drop entry from the hash table (backward shift deletion, no tombstone) and from the LRU list
+		 */
+		private void remove(int entry) {
+			int mask = table.length - 1;
+			int slot = (int) mix(keys[entry]) & mask;
+
+			while(table[slot] != entry) {
+				slot = (slot + 1) & mask;
+			}
+
+			for(int gap = slot, current = (slot + 1) & mask; ; current = (current + 1) & mask) {
+				if(table[current] == EMPTY) {
+					table[gap] = EMPTY;
+					break;
+				}
+
+				int home = (int) mix(keys[table[current]]) & mask;
+
+				// Move it back unless its home lies cyclically in (gap, current]
+				if(((current - home) & mask) >= ((current - gap) & mask)) {
+					table[gap] = table[current];
+					gap = current;
+				}
+			}
+
+			unlink(entry);
+			weight -= weigh(values[entry]);
+			values[entry] = null;
+			size--;
+			next[entry] = free;
+			free = entry;
+		}
+
+		private void unlink(int entry) {
+			int before = previous[entry];
+			int after = next[entry];
+
+			if(before == EMPTY) {
+				head = after;
+			} else {
+				next[before] = after;
+			}
+
+			if(after == EMPTY) {
+				tail = before;
+			} else {
+				previous[after] = before;
+			}
+		}
+
+		private void linkFirst(int entry) {
+			previous[entry] = EMPTY;
+			next[entry] = head;
+
+			if(head == EMPTY) {
+				tail = entry;
+			} else {
+				previous[head] = entry;
+			}
+
+			head = entry;
+		}
+	}
+
+	/**
+	 * Driver main method
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		FactorizationCache cache = new FactorizationCache(1 << 20);
+		java.util.Random rand = new java.util.Random(42);
+		long[] hot = new long[1000];
+
+		for(int i = 0; i < hot.length; i++) {
+			hot[i] = rand.nextLong() >>> 2;
+		}
+
+		long start = System.currentTimeMillis();
+
+		for(int i = 0; i < 200_000; i++) {
+			// 90% of the traffic on the hot keys
+			cache.factorize((rand.nextInt(10) == 0) ? rand.nextLong() >>> 2 : hot[rand.nextInt(hot.length)]);
+		}
+
+		System.out.println(cache);
+		System.out.println("Cached factorization took " + (System.currentTimeMillis() - start) + "ms");
+	}
+}
@@ -1,6 +1,12 @@
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
 
 /**
  * https://en.wikipedia.org/wiki/Trial_division
@@ -8,13 +14,61 @@ import java.util.Random;
  * https://en.wikipedia.org/wiki/Wheel_factorization
  * https://en.wikipedia.org/wiki/Pollard%27s_p_%E2%88%92_1_algorithm
  * https://comeoncodeon.wordpress.com/2010/09/18/pollard-rho-brent-integer-factorization/
+ * https://maths-people.anu.edu.au/~brent/pd/rpb051i.pdf
  * 
  * @author Stéphan R.
  *
  */
 public class IntegerFactorization {
 
-	private static boolean[] primes;
+	private static PrimeTable primes = SharedPrimeTable.shared();
+	
+	/**
+	 * {@link #factorize(long)} divides by the primes below this bound before running Pollard Rho
+	 */
+	private static final int TRIAL_LIMIT = 1 << 8;
+	
+	private static final int[] SMALL_PRIMES = SharedPrimeTable.shared().snapshot(TRIAL_LIMIT).toArray(TRIAL_LIMIT);
+	
+	/**
+	 * Number of products accumulated between two gcd computations in {@link #brent(long, long)}
+	 */
+	private static final int BATCH = 128;
+	
+	/**
+	 * Composites above this bound first go through {@link PollardPMinusOne}, below it Pollard Rho is fast enough
+	 */
+	private static final long P_MINUS_ONE_LIMIT = 1L << 40;
+	
+	/**
+	 * Number of polynomials x^2 + c tried before giving up on a composite
+	 */
+	private static final int MAX_ATTEMPTS = 64;
+	
+	/**
+	 * Below this bound Hart's one line factoring beats Pollard Rho, above it Rho wins on all but balanced semiprimes
+	 */
+	private static final long HART_LIMIT = 1L << 30;
+	
+	/**
+	 * Far more multiples than Hart needs for any n below {@link #HART_LIMIT}, Rho takes over if it still fails
+	 */
+	private static final int HART_ITERATIONS = 1 << 13;
+	
+	/**
+	 * Above {@link #HART_LIMIT}, a few Fermat steps catch the factors very close to √n for almost nothing
+	 */
+	private static final int FERMAT_STEPS = 16;
+	
+	/**
+	 * @param n
+	 * @return true if n is prime, falling back to the shared table past the limit of {@code primes}
+	 */
+	private static boolean isPrime(int n) {
+		PrimeTable table = primes;
+		
+		return (n < table.limit()) ? table.isPrime(n) : SharedPrimeTable.shared().isPrime(n);
+	}
 	
 	/**
 	 * @param n
@@ -79,13 +133,13 @@ public class IntegerFactorization {
 		while(n != 1) {
 			long divisor = (useRhoAlgorithm) ? pollardRho(n) : richardBrent(n);
 			
-			if(primes[(int) divisor]) {
+			if(isPrime((int) divisor)) {
 				factors.add(divisor);
 			}
 			
 			n /= divisor;
 			
-			if(primes[n]) {
+			if(isPrime(n)) {
 				factors.add((long) n);
 				break;
 			}
@@ -94,6 +148,361 @@ public class IntegerFactorization {
 		return (n == 1) ? factors.get(0) : n;
 	}
 	
+	/**
+	 * Complete factorization of any positive long.
+	 * 
+	 * <pre>{@code
+	 * Divide by the primes below TRIAL_LIMIT
+	 * While a composite cofactor m is left (checked with Miller-Rabin)
+	 * 	Below 2^30, try Hart's one line factoring, above a few Fermat steps
+	 * 	Try Pollard p - 1 first when m is large, it is cheap and catches the factors p with a smooth p - 1
+	 * 	Split it with Brent's variant of Pollard Rho, f(x) = x^2 + c with c = 1, 2, ...
+	 * 	SQUFOF if every polynomial failed
+	 * }</pre>
+	 * 
+	 * All the arithmetic modulo m goes through {@link Montgomery} so nothing overflows, whatever the size of m.
+	 * 
+	 * @param n positive
+	 * 
+	 * @return the prime factors of n in increasing order, repeated according to their multiplicity
+	 */
+	static long[] factorize(long n) {
+		// A long has at most 62 prime factors
+		long[] factors = new long[64];
+		
+		return Arrays.copyOf(factors, factorize(n, factors));
+	}
+	
+	/**
+	 * Allocation free variant of {@link #factorize(long)}
+	 * 
+	 * @param n positive
+	 * @param factors receives the prime factors of n in increasing order, at least 62 entries long
+	 * 
+	 * @return the number of prime factors written
+	 */
+	static int factorize(long n, long[] factors) {
+		if (n < 1)
+			throw new IllegalArgumentException("Not a positive number: " + n);
+		
+		int count = 0;
+		int twos = Long.numberOfTrailingZeros(n);
+		
+		for(int i = 0; i < twos; i++) {
+			factors[count++] = 2;
+		}
+		
+		n >>>= twos;
+		
+		for(int i = 1; i < SMALL_PRIMES.length && (long) SMALL_PRIMES[i] * SMALL_PRIMES[i] <= n; i++) {
+			int p = SMALL_PRIMES[i];
+			
+			while(n % p == 0) {
+				factors[count++] = p;
+				n /= p;
+			}
+		}
+		
+		if(n > 1) {
+			count = (n < TRIAL_LIMIT * TRIAL_LIMIT) ? append(factors, count, n) : split(n, factors, count);
+		}
+		
+		Arrays.sort(factors, 0, count);
+		
+		return count;
+	}
+	
+	/**
+	 * Parallel version of {@link #factorize(long)} running on the common {@link ForkJoinPool}.
+	 * 
+	 * @param inputs positive numbers
+	 * 
+	 * @return the factorization of every input
+	 */
+	static FactorizationBatch factorizeAll(long[] inputs) {
+		return factorizeAll(inputs, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Factorize a batch of numbers
+	 * 
+	 * 		1/ Split the inputs in chunks of {@link FactorizeTask#CHUNK} numbers and fork them over the pool.
+	 * 		2/ Each number below {@link #SPF_LIMIT} is read from a shared {@link SmallestPrimeFactorTable}, larger
+	 * 		   ones go through {@link #factorize(long, long[])}. The primes and exponents of chunk c are stored in
+	 * 		   slot c and the number of distinct primes of input i in offsets[i + 1].
+	 * 		3/ Turn the counts into offsets and concatenate the chunks in order.
+	 * 
+	 * @param inputs positive numbers
+	 * @param pool
+	 * 
+	 * @return the factorization of every input
+	 */
+	static FactorizationBatch factorizeAll(long[] inputs, ForkJoinPool pool) {
+		int chunks = (inputs.length + FactorizeTask.CHUNK - 1) / FactorizeTask.CHUNK;
+		int[] offsets = new int[inputs.length + 1];
+		long[][] chunkPrimes = new long[chunks][];
+		byte[][] chunkExponents = new byte[chunks][];
+		
+		if(chunks > 0) {
+			pool.invoke(new FactorizeTask(inputs, offsets, chunkPrimes, chunkExponents, 0, chunks));
+		}
+		
+		for(int i = 0; i < inputs.length; i++) {
+			offsets[i + 1] += offsets[i];
+		}
+		
+		long[] primes = new long[offsets[inputs.length]];
+		byte[] exponents = new byte[primes.length];
+		int index = 0;
+		
+		for(int c = 0; c < chunks; c++) {
+			System.arraycopy(chunkPrimes[c], 0, primes, index, chunkPrimes[c].length);
+			System.arraycopy(chunkExponents[c], 0, exponents, index, chunkExponents[c].length);
+			index += chunkPrimes[c].length;
+		}
+		
+		return new FactorizationBatch(offsets, primes, exponents);
+	}
+	
+	/**
+	 * Numbers below this bound are factorized with a lookup table (2MB) rather than trial division
+	 */
+	static final int SPF_LIMIT = 1 << 21;
+	
+	private static final class SmallestPrimeFactors {
+		static final SmallestPrimeFactorTable TABLE = new SmallestPrimeFactorTable(SPF_LIMIT);
+	}
+	
+	/**
+	 * Factorizes the chunks [from, to) of the inputs
+	 */
+	private static final class FactorizeTask extends RecursiveAction {
+		
+		private static final long serialVersionUID = 1L;
+		
+		/**
+		 * Inputs per chunk
+		 */
+		static final int CHUNK = 1 << 10;
+		
+		/**
+		 * A long has at most 15 distinct prime factors
+		 */
+		private static final int MAX_DISTINCT = 15;
+		
+		private static final ThreadLocal<long[]> BUFFER = new ThreadLocal<long[]>() {
+			@Override
+			protected long[] initialValue() {
+				return new long[64 + CHUNK * MAX_DISTINCT];
+			}
+		};
+		
+		private final long[] inputs;
+		private final int[] offsets;
+		private final long[][] chunkPrimes;
+		private final byte[][] chunkExponents;
+		private final int from;
+		private final int to;
+		
+		FactorizeTask(long[] inputs, int[] offsets, long[][] chunkPrimes, byte[][] chunkExponents, int from, int to) {
+			this.inputs = inputs;
+			this.offsets = offsets;
+			this.chunkPrimes = chunkPrimes;
+			this.chunkExponents = chunkExponents;
+			this.from = from;
+			this.to = to;
+		}
+		
+		@Override
+		protected void compute() {
+			if(to - from > 1) {
+				int middle = (from + to) >>> 1;
+				
+				invokeAll(new FactorizeTask(inputs, offsets, chunkPrimes, chunkExponents, from, middle),
+						new FactorizeTask(inputs, offsets, chunkPrimes, chunkExponents, middle, to));
+				
+				return;
+			}
+			
+			// The first 64 slots receive the factors of one input, the rest the distinct primes of the chunk
+			long[] buffer = BUFFER.get();
+			byte[] exponents = new byte[CHUNK * MAX_DISTINCT];
+			int[] small = new int[31];
+			int size = 64;
+			
+			for(int i = from * CHUNK, end = Math.min(i + CHUNK, inputs.length); i < end; i++) {
+				long n = inputs[i];
+				int count;
+				
+				if(n > 0 && n < SPF_LIMIT) {
+					count = SmallestPrimeFactors.TABLE.factorize((int) n, small);
+					
+					for(int k = 0; k < count; k++) {
+						buffer[k] = small[k];
+					}
+				} else {
+					count = factorize(n, buffer);
+				}
+				
+				int start = size;
+				
+				for(int k = 0; k < count; k++) {
+					if(size > start && buffer[size - 1] == buffer[k]) {
+						exponents[size - 65]++;
+					} else {
+						buffer[size] = buffer[k];
+						exponents[size - 64] = 1;
+						size++;
+					}
+				}
+				
+				offsets[i + 1] = size - start;
+			}
+			
+			chunkPrimes[from] = Arrays.copyOfRange(buffer, 64, size);
+			chunkExponents[from] = Arrays.copyOf(exponents, size - 64);
+		}
+	}
+	
+	/**
+	 * @param factors
+	 * @param count
+	 * @param factor
+	 * 
+	 * @return the new number of factors
+	 */
+	private static int append(long[] factors, int count, long factor) {
+		factors[count] = factor;
+		
+		return count + 1;
+	}
+	
+	/**
+	 * Append the prime factors of n to factors
+	 * 
+	 * @param n odd, without any factor below TRIAL_LIMIT
+	 * @param factors
+	 * @param count number of factors already found
+	 * 
+	 * @return the new number of factors
+	 */
+	private static int split(long n, long[] factors, int count) {
+		if(MillerRabin.isPrime(n)) {
+			return append(factors, count, n);
+		}
+		
+		long s = (n < HART_LIMIT) ? SquareFactorization.hart(n, HART_ITERATIONS) : SquareFactorization.fermat(n, FERMAT_STEPS);
+		
+		if(s != 0) {
+			return split(n / s, factors, split(s, factors, count));
+		}
+		
+		if(n >= P_MINUS_ONE_LIMIT) {
+			long d = PollardPMinusOne.findFactor(n);
+			
+			if(d != 0) {
+				return split(n / d, factors, split(d, factors, count));
+			}
+		}
+		
+		for(long c = 1; c <= MAX_ATTEMPTS; c++) {
+			long d = brent(n, c);
+			
+			if(d != n) {
+				return split(n / d, factors, split(d, factors, count));
+			}
+		}
+		
+		long d = SquareFactorization.squfof(n);
+		
+		if(d != 0) {
+			return split(n / d, factors, split(d, factors, count));
+		}
+		
+		throw new ArithmeticException("No factor of " + n + " found with " + MAX_ATTEMPTS + " polynomials nor SQUFOF");
+	}
+	
+	/**
+	 * Brent's cycle detection on f(x) = x^2 + c mod n, the differences are multiplied together and only
+	 * checked with a gcd every {@link #BATCH} steps. Everything is kept in Montgomery form, this maps f to
+	 * x^2 / R + c which is just as good a pseudo random map and gives the same gcds since R is coprime to n.
+	 * 
+	 * @param n odd composite
+	 * @param c
+	 * 
+	 * @return a divisor of n, n itself when this polynomial failed
+	 */
+	static long brent(long n, long c) {
+		return brent(n, c, false);
+	}
+	
+	/**
+	 * {@link #brent(long, long)} that can be stopped: with cancellable set, the interrupt flag is polled at every
+	 * gcd so {@link AsyncFactorization} can stop a losing polynomial.
+	 * 
+	 * @param n odd composite
+	 * @param c
+	 * @param cancellable
+	 * 
+	 * @return a divisor of n, n itself when this polynomial failed
+	 * 
+	 * @throws CancellationException if cancellable and the thread is interrupted
+	 */
+	static long brent(long n, long c, boolean cancellable) {
+		long inverse = Montgomery.inverse(n);
+		long y = c + 1;
+		long q = Montgomery.one(n);
+		long g = 1;
+		long x = y;
+		long ys = y;
+		
+		for(long r = 1; g == 1; r <<= 1) {
+			x = y;
+			
+			for(long i = 0; i < r; i++) {
+				y = addMod(Montgomery.multiply(y, y, n, inverse), c, n);
+			}
+			
+			for(long k = 0; k < r && g == 1; k += BATCH) {
+				ys = y;
+				
+				for(long i = Math.min(BATCH, r - k); i > 0; i--) {
+					y = addMod(Montgomery.multiply(y, y, n, inverse), c, n);
+					q = Montgomery.multiply(q, (x > y) ? x - y : y - x, n, inverse);
+				}
+				
+				g = GreatestCommonDivisor.binary(q, n);
+				
+				if(cancellable && Thread.currentThread().isInterrupted()) {
+					throw new CancellationException("Pollard Rho interrupted on " + n);
+				}
+			}
+		}
+		
+		if(g == n) {
+			// The batch overshot, replay it one step at a time
+			do {
+				ys = addMod(Montgomery.multiply(ys, ys, n, inverse), c, n);
+				g = GreatestCommonDivisor.binary((x > ys) ? x - ys : ys - x, n);
+			} while(g == 1);
+		}
+		
+		return g;
+	}
+	
+	/**
+	 * @param a in [0, n)
+	 * @param c in [0, n)
+	 * @param n below 2^63
+	 * 
+	 * @return (a + c) mod n
+	 */
+	private static long addMod(long a, long c, long n) {
+		long sum = a + c;
+		
+		return (sum >= n) ? sum - n : sum;
+	}
+	
 	/**
 	 * fn is f(x) = (x * x) + c
 	 * 
@@ -162,6 +571,8 @@ public class IntegerFactorization {
 				g = GreatestCommonDivisor.binary(q, n);
 				k += m;
 			}
+			
+			r *= 2;
 		}
 		
 		if(g == n) {
@@ -224,7 +635,7 @@ public class IntegerFactorization {
 		int total = 1;
 		
 		for (int p = 2; p <= n; p++) {
-	        if (primes[p]) {
+	        if (isPrime(p)) {
 	        	if(p * p < n) {
 	        		if (n % p == 0) {
 		            	int count = 0;
@@ -251,11 +662,17 @@ public class IntegerFactorization {
 	/**
 	 * Driver main method use to compare the different algorithm proposed above
 	 * 
+	 * Set {@code -Dprimes.table=<file>} to map a {@link MappedPrimeTable} instead of sieving at startup,
+	 * the file is created on the first run.
+	 * 
 	 * @param args 
+	 * 
+	 * @throws IOException if the prime table cannot be read or written
 	 */
-	public static void main(String[] args) {
+	public static void main(String[] args) throws IOException {
+		String table = System.getProperty("primes.table");
 		long start = System.currentTimeMillis();
-		primes = PrimeGenerating.primeSieve(3642 + 1);
+		primes = (table == null) ? SharedPrimeTable.shared() : MappedPrimeTable.openOrCreate(Paths.get(table), 3642 + 1);
 		System.out.println("Loading Prime number took " + (System.currentTimeMillis() - start) + "ms\n");
 		
 		start = System.currentTimeMillis();	
@@ -274,6 +691,23 @@ public class IntegerFactorization {
 		System.out.println("Largest Prime Factor => " + factorize(3642, false));
 		System.out.println("Richard Brent took " + (System.currentTimeMillis() - start) + "ms\n");
 		
+		start = System.currentTimeMillis();
+		System.out.println("Prime Factors => " + Arrays.toString(factorize(998244353L * 1000000007L)));
+		System.out.println("64-bit Pollard Rho took " + (System.currentTimeMillis() - start) + "ms\n");
+		
+		long[] inputs = new long[1 << 18];
+		Random rand = new Random(42);
+		
+		for(int i = 0; i < inputs.length; i++) {
+			inputs[i] = (rand.nextLong() >>> (1 + rand.nextInt(40))) + 1;
+		}
+		
+		start = System.currentTimeMillis();
+		FactorizationBatch batch = factorizeAll(inputs);
+		long elapsed = Math.max(System.currentTimeMillis() - start, 1);
+		System.out.println(batch.primes.length + " distinct prime factors over " + inputs.length + " numbers");
+		System.out.println("Parallel factorization took " + elapsed + "ms (" + (inputs.length * 1000L / elapsed) + " numbers/s)\n");
+		
 		start = System.currentTimeMillis();
 		System.out.println("Largest Prime Factor => " + wheelFactorization(3642));
 		System.out.println("Wheel Factorization took " + (System.currentTimeMillis() - start) + "ms\n");
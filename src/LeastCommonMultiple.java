@@ -1,3 +1,8 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
+import java.util.stream.LongStream;
 
 /**
  * https://en.wikipedia.org/wiki/Least_common_multiple#Finding_least_common_multiples_by_prime_factorization
@@ -9,15 +14,55 @@
 public final class LeastCommonMultiple {
 
 	/**
-	 * Least Common Multiple: {@code a.b/gcd(a, b)}
+	 * How the LCM of an array is reduced
+	 */
+	enum Method {
+		/**
+		 * Balanced tree of {@code lcm(x, y) = x / gcd(x, y) * y}, in long as long as it fits
+		 */
+		GCD_TREE,
+		/**
+		 * Highest power of every prime dividing an input, multiplied as a balanced tree. Much cheaper than the gcds
+		 * of the upper levels once the LCM runs into millions of bits.
+		 */
+		FACTORIZATION
+	}
+
+	/**
+	 * Below this many numbers the tree is reduced in the calling thread
+	 */
+	static final int PARALLEL_THRESHOLD = 1 << 12;
+
+	/**
+	 * Least Common Multiple: {@code a / gcd(a, b) * b}, dividing first so that only a result out of range overflows
 	 * 
-	 * @param a
-	 * @param b
+	 * @param a non negative
+	 * @param b non negative
 	 * 
-	 * @return
+	 * @return 0 if a or b is 0
+	 * @throws ArithmeticException if the LCM does not fit in a long
 	 */
 	static long lcm(long a, long b) {
-		return (a * b) / GreatestCommonDivisor.euclidean(a, b);
+		if (a < 0 || b < 0)
+			throw new IllegalArgumentException("Negative number");
+
+		if(a == 0 || b == 0) {
+			return 0;
+		}
+
+		return Math.multiplyExact(a / GreatestCommonDivisor.euclidean(a, b), b);
+	}
+
+	/**
+	 * @param a positive
+	 * @param b positive
+	 * @return lcm(a, b), or -1 if it does not fit in a long
+	 */
+	private static long lcmOrOverflow(long a, long b) {
+		long d = a / GreatestCommonDivisor.branchFree(a, b);
+		long product = d * b;
+
+		return (Montgomery.unsignedMultiplyHigh(d, b) == 0 && product >= 0) ? product : -1;
 	}
 
 	/**
@@ -32,6 +77,195 @@ public final class LeastCommonMultiple {
 	static long lcm(long a, long b, long c) {
 		return lcm(a, lcm(b, c));
 	}
+
+	/**
+	 * @param a non negative
+	 * @param b non negative
+	 * @return {@code a / gcd(a, b) * b}
+	 */
+	static BigInteger lcm(BigInteger a, BigInteger b) {
+		if(a.signum() == 0 || b.signum() == 0) {
+			return BigInteger.ZERO;
+		}
+
+		if(a.bitLength() < 64 && b.bitLength() < 64) {
+			long l = lcmOrOverflow(a.longValue(), b.longValue());
+
+			if(l > 0) {
+				return BigInteger.valueOf(l);
+			}
+		}
+
+		BigInteger g = BigGreatestCommonDivisor.gcd(a, b);
+
+		if(g.equals(BigInteger.ONE)) {
+			return a.multiply(b);
+		}
+
+		// Divide the smaller operand, usually by a small gcd
+		return (a.bitLength() <= b.bitLength()) ? a.divide(g).multiply(b) : b.divide(g).multiply(a);
+	}
+
+	/**
+	 * {@link #lcm(long[], Method)} with {@link Method#GCD_TREE}
+	 */
+	static BigInteger lcm(long[] values) {
+		return lcm(values, Method.GCD_TREE);
+	}
+
+	/**
+	 * The stream is collected first, then reduced as {@link #lcm(long[])}
+	 */
+	static BigInteger lcm(LongStream values) {
+		return lcm(values.toArray());
+	}
+
+	/**
+	 * LCM of an array, the halves of the tree are reduced in parallel on the common {@link ForkJoinPool}.
+	 * The partial LCMs stay in long until they overflow, then go on as BigIntegers.
+	 *
+	 * @param values non negative numbers
+	 * @param method
+	 *
+	 * @return the LCM of all values, 1 if there are none, 0 if one of them is 0
+	 */
+	static BigInteger lcm(long[] values, Method method) {
+		for(long value : values) {
+			if (value < 0)
+				throw new IllegalArgumentException("Negative number");
+
+			if(value == 0) {
+				return BigInteger.ZERO;
+			}
+		}
+
+		if(values.length == 0) {
+			return BigInteger.ONE;
+		}
+
+		if(method == Method.FACTORIZATION) {
+			return byFactorization(values);
+		}
+
+		if(values.length <= PARALLEL_THRESHOLD) {
+			return tree(values, 0, values.length);
+		}
+
+		return ForkJoinPool.commonPool().invoke(new TreeTask(values, 0, values.length));
+	}
+
+	/**
+	 * Sequential reduction of [from, to), a single long pass first and the tree only if it overflows
+	 */
+	private static BigInteger tree(long[] values, int from, int to) {
+		long l = 1;
+
+		for(int i = from; i < to && l > 0; i++) {
+			l = lcmOrOverflow(l, values[i]);
+		}
+
+		if(l > 0) {
+			return BigInteger.valueOf(l);
+		}
+
+		// The running LCM left 64 bits, go balanced from here
+		if(to - from == 1) {
+			return BigInteger.valueOf(values[from]);
+		}
+
+		int middle = (from + to) >>> 1;
+
+		return lcm(tree(values, from, middle), tree(values, middle, to));
+	}
+
+	/**
+	 * Parallel halves of the tree down to {@link #PARALLEL_THRESHOLD} numbers
+	 */
+	private static final class TreeTask extends RecursiveTask<BigInteger> {
+
+		private static final long serialVersionUID = 1L;
+
+		private final long[] values;
+		private final int from;
+		private final int to;
+
+		TreeTask(long[] values, int from, int to) {
+			this.values = values;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected BigInteger compute() {
+			if(to - from <= PARALLEL_THRESHOLD) {
+				return tree(values, from, to);
+			}
+
+			int middle = (from + to) >>> 1;
+			TreeTask right = new TreeTask(values, middle, to);
+
+			right.fork();
+
+			BigInteger left = new TreeTask(values, from, middle).compute();
+
+			return lcm(left, right.join());
+		}
+	}
+
+	/**
+	 * <pre>{@code
+	 * Factorize every input with IntegerFactorization.factorizeAll
+	 * For each distinct prime p, e = the largest exponent of p over the inputs
+	 * LCM = product of the p^e
+	 * }</pre>
+	 */
+	private static BigInteger byFactorization(long[] values) {
+		FactorizationBatch batch = IntegerFactorization.factorizeAll(values);
+		long[] primes = batch.primes.clone();
+
+		Arrays.sort(primes);
+
+		int distinct = 0;
+
+		for(int i = 0; i < primes.length; i++) {
+			if(i == 0 || primes[i] != primes[i - 1]) {
+				primes[distinct++] = primes[i];
+			}
+		}
+
+		int[] exponents = new int[distinct];
+
+		for(int i = 0; i < batch.primes.length; i++) {
+			int k = Arrays.binarySearch(primes, 0, distinct, batch.primes[i]);
+
+			exponents[k] = Math.max(exponents[k], batch.exponents[i]);
+		}
+
+		BigInteger[] powers = new BigInteger[distinct];
+
+		for(int k = 0; k < distinct; k++) {
+			powers[k] = BigInteger.valueOf(primes[k]).pow(exponents[k]);
+		}
+
+		return product(powers, 0, distinct);
+	}
+
+	/**
+	 * Balanced product tree, the operands stay of similar sizes for Karatsuba and Toom-Cook
+	 */
+	private static BigInteger product(BigInteger[] factors, int from, int to) {
+		if(to - from == 0) {
+			return BigInteger.ONE;
+		}
+
+		if(to - from == 1) {
+			return factors[from];
+		}
+
+		int middle = (from + to) >>> 1;
+
+		return product(factors, from, middle).multiply(product(factors, middle, to));
+	}
 	
 	/**
 	 * @param args
@@ -41,6 +275,21 @@ public final class LeastCommonMultiple {
 		
 		System.out.println(lcm(6, 20, 36));
 		System.out.println(lcm(40, 45));
-		System.out.println("Solution took " + (System.currentTimeMillis() - start) + "ms");
+		System.out.println(lcm(3037000499L * 2, 3037000499L * 3));
+		System.out.println("Solution took " + (System.currentTimeMillis() - start) + "ms\n");
+
+		long[] values = new long[1 << 16];
+
+		for(int i = 0; i < values.length; i++) {
+			values[i] = i + 1;
+		}
+
+		start = System.currentTimeMillis();
+		System.out.println("LCM of 1.." + values.length + " has " + lcm(values).bitLength() + " bits");
+		System.out.println("GCD tree took " + (System.currentTimeMillis() - start) + "ms\n");
+
+		start = System.currentTimeMillis();
+		System.out.println("LCM of 1.." + values.length + " has " + lcm(values, Method.FACTORIZATION).bitLength() + " bits");
+		System.out.println("Factorization took " + (System.currentTimeMillis() - start) + "ms");
 	}
 }
@@ -0,0 +1,193 @@
+import java.io.IOException;
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.LongBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.CRC32;
+
+/**
+ * Prime table stored on disk and memory-mapped read-only.<br /><br />
+ *
+ * The file is generated once from a {@link PrimeBitSet} and then opened with {@link FileChannel#map}: lookups
+ * read straight from the page cache, nothing is sieved at startup and every process mapping the same file
+ * shares the same physical pages.
+ *
+ * <pre>{@code
+ * File layout, little endian:
+ *
+ * 	offset  0	int		magic "PRMB"
+ * 	offset  4	int		format version
+ * 	offset  8	long	limit, primes are stored for [0, limit)
+ * 	offset 16	long	number of 64-bit words
+ * 	offset 24	long	CRC32 of the words
+ * 	offset 32	long[]	the words of the PrimeBitSet: bit i set when 2i + 1 is composite
+ * }</pre>
+ *
+ * @author Stéphan R.
+ *
+ */
+public class MappedPrimeTable implements PrimeTable {
+
+	static final int MAGIC = 0x424D5250;
+	static final int VERSION = 1;
+	static final int HEADER_BYTES = 32;
+
+	private final ByteBuffer data;
+	private final LongBuffer words;
+	private final int limit;
+	private final long checksum;
+
+	private MappedPrimeTable(ByteBuffer data, int limit, long checksum) {
+		this.data = data;
+		this.words = data.asLongBuffer();
+		this.limit = limit;
+		this.checksum = checksum;
+	}
+
+	/**
+	 * Write the table of sieve to path. The file is written next to its destination and moved in place,
+	 * so a concurrent {@link #open(Path)} never sees a partial table.
+	 *
+	 * @param path
+	 * @param sieve
+	 *
+	 * @throws IOException
+	 */
+	static void write(Path path, PrimeBitSet sieve) throws IOException {
+		long[] words = sieve.words();
+		ByteBuffer data = ByteBuffer.allocate(words.length << 3).order(ByteOrder.LITTLE_ENDIAN);
+
+		data.asLongBuffer().put(words);
+
+		CRC32 crc = new CRC32();
+		crc.update(data.array(), 0, data.capacity());
+
+		ByteBuffer header = ByteBuffer.allocate(HEADER_BYTES).order(ByteOrder.LITTLE_ENDIAN);
+		header.putInt(MAGIC).putInt(VERSION).putLong(sieve.limit()).putLong(words.length).putLong(crc.getValue());
+		// Through Buffer, the ByteBuffer override returning ByteBuffer only exists since Java 9
+		((Buffer) header).flip();
+
+		Path directory = path.toAbsolutePath().getParent();
+		Path temp = Files.createTempFile(directory, path.getFileName().toString(), ".tmp");
+
+		try {
+			try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.WRITE)) {
+				while(header.hasRemaining()) {
+					channel.write(header);
+				}
+
+				while(data.hasRemaining()) {
+					channel.write(data);
+				}
+
+				channel.force(true);
+			}
+
+			Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+		} finally {
+			Files.deleteIfExists(temp);
+		}
+	}
+
+	/**
+	 * Map an existing table. Only the header is checked, call {@link #verify()} to check the words as well.
+	 *
+	 * @param path
+	 *
+	 * @return the mapped table
+	 *
+	 * @throws IOException if the file cannot be read or is not a valid table
+	 */
+	static MappedPrimeTable open(Path path) throws IOException {
+		try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+			long size = channel.size();
+
+			if (size < HEADER_BYTES)
+				throw new IOException(path + " is not a prime table: truncated header");
+
+			MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+
+			buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+			int magic = buffer.getInt(0);
+			int version = buffer.getInt(4);
+			long limit = buffer.getLong(8);
+			long length = buffer.getLong(16);
+			long checksum = buffer.getLong(24);
+
+			if (magic != MAGIC)
+				throw new IOException(path + " is not a prime table: bad magic number");
+
+			if (version != VERSION)
+				throw new IOException(path + " has unsupported version " + version);
+
+			if (limit < 0 || limit > Integer.MAX_VALUE || length != (((limit >>> 1) + 63) >>> 6) || size != HEADER_BYTES + (length << 3))
+				throw new IOException(path + " is corrupted: header does not match the file size");
+
+			((Buffer) buffer).position(HEADER_BYTES);
+
+			// The mapping stays valid after the channel is closed
+			return new MappedPrimeTable(buffer.slice().order(ByteOrder.LITTLE_ENDIAN), (int) limit, checksum);
+		}
+	}
+
+	/**
+	 * Map the table at path if it covers limit, otherwise sieve it and write it there first
+	 *
+	 * @param path
+	 * @param limit
+	 *
+	 * @return the mapped table
+	 *
+	 * @throws IOException
+	 */
+	static MappedPrimeTable openOrCreate(Path path, int limit) throws IOException {
+		if(Files.exists(path)) {
+			MappedPrimeTable table = open(path);
+
+			if(table.limit() >= limit) {
+				return table;
+			}
+		}
+
+		write(path, PrimeGenerating.bitSieve(limit));
+
+		return open(path);
+	}
+
+	/**
+	 * Recompute the checksum of the words, this reads the whole file
+	 *
+	 * @return true if the words match the checksum of the header
+	 */
+	boolean verify() {
+		CRC32 crc = new CRC32();
+
+		crc.update(data.duplicate());
+
+		return crc.getValue() == checksum;
+	}
+
+	@Override
+	public boolean isPrime(int n) {
+		if(n < 0 || n >= limit)
+			throw new IllegalArgumentException(n + " is outside of the table range [0, " + limit + ")");
+
+		if((n & 1) == 0) {
+			return n == 2;
+		}
+
+		return (words.get(n >>> 7) & (1L << (n >>> 1))) == 0;
+	}
+
+	@Override
+	public int limit() {
+		return limit;
+	}
+}
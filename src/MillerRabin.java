@@ -0,0 +1,236 @@
+import java.util.Random;
+
+/**
+ * https://en.wikipedia.org/wiki/Miller%E2%80%93Rabin_primality_test
+ * https://miller-rabin.appspot.com/
+ *
+ * Deterministic primality test for every long, without any sieve.<br /><br />
+ *
+ * <pre>{@code
+ * Write n - 1 = d * 2^s with d odd
+ *
+ * For each base a of {2, 325, 9375, 28178, 450775, 9780504, 1795265022}
+ * 	x = a^d mod n
+ * 	If x is neither 1 nor n - 1, square it up to s - 1 times
+ * 	n is composite if n - 1 never shows up
+ * }</pre>
+ *
+ * This set of 7 bases (Jim Sinclair, 2011) has no strong pseudoprime below 2^64, so the answer is exact.
+ * Products are reduced with {@link Montgomery} arithmetic, no multiplication can overflow. Numbers with a
+ * factor below 64 are rejected by trial division first, which settles most composites for a few divisions.
+ *
+ * @author Stéphan R.
+ *
+ */
+public class MillerRabin {
+
+	private static final long[] BASES = { 2, 325, 9375, 28178, 450775, 9780504, 1795265022 };
+
+	/**
+	 * Bit p set for each prime p < 64
+	 */
+	private static final long SMALL_PRIMES;
+
+	/**
+	 * Products of the odd primes below 64, each small enough for an int remainder
+	 */
+	private static final long PRODUCT_3_23 = 3L * 5 * 7 * 11 * 13 * 17 * 19 * 23;
+	private static final long PRODUCT_29_43 = 29L * 31 * 37 * 41 * 43;
+	private static final long PRODUCT_47_61 = 47L * 53 * 59 * 61;
+
+	static {
+		long mask = 0;
+
+		for(int p = 2; p < 64; p++) {
+			boolean prime = true;
+
+			for(int d = 2; d * d <= p; d++) {
+				prime &= p % d != 0;
+			}
+
+			if(prime) {
+				mask |= 1L << p;
+			}
+		}
+
+		SMALL_PRIMES = mask;
+	}
+
+	/**
+	 * @param n any long
+	 * @return true if n is prime
+	 */
+	static boolean isPrime(long n) {
+		if(n < 64) {
+			return n >= 0 && ((SMALL_PRIMES >>> n) & 1) != 0;
+		}
+
+		if((n & 1) == 0 || hasSmallFactor(n)) {
+			return false;
+		}
+
+		// No factor below 67
+		return n < 67 * 67 || strongProbablePrime(n);
+	}
+
+	/**
+	 * Test every value, the result of values[i] is stored at index i
+	 *
+	 * @param values
+	 * @return
+	 */
+	static boolean[] isPrime(long[] values) {
+		boolean[] result = new boolean[values.length];
+
+		isPrime(values, result);
+
+		return result;
+	}
+
+	/**
+	 * Allocation free variant of {@link #isPrime(long[])}. A first tight pass settles small numbers and those with
+	 * a small factor, the second one only runs the Miller-Rabin rounds on the survivors.
+	 *
+	 * @param values
+	 * @param result at least as long as values
+	 */
+	static void isPrime(long[] values, boolean[] result) {
+		if (result.length < values.length)
+			throw new IllegalArgumentException("Result array of length " + result.length + " cannot hold " + values.length + " values");
+
+		boolean pending = false;
+
+		for(int i = 0; i < values.length; i++) {
+			long n = values[i];
+
+			if(n < 64) {
+				result[i] = n >= 0 && ((SMALL_PRIMES >>> n) & 1) != 0;
+			} else {
+				result[i] = (n & 1) != 0 && !hasSmallFactor(n);
+				pending |= result[i] && n >= 67 * 67;
+			}
+		}
+
+		if(!pending) {
+			return;
+		}
+
+		for(int i = 0; i < values.length; i++) {
+			long n = values[i];
+
+			if(result[i] && n >= 67 * 67) {
+				result[i] = strongProbablePrime(n);
+			}
+		}
+	}
+
+	/**
+	 * @param n
+	 * @return true if an odd prime below 64 divides n
+	 */
+	private static boolean hasSmallFactor(long n) {
+		int r = (int) (n % PRODUCT_3_23);
+
+		if(r % 3 == 0 || r % 5 == 0 || r % 7 == 0 || r % 11 == 0 || r % 13 == 0 || r % 17 == 0 || r % 19 == 0 || r % 23 == 0) {
+			return true;
+		}
+
+		r = (int) (n % PRODUCT_29_43);
+
+		if(r % 29 == 0 || r % 31 == 0 || r % 37 == 0 || r % 41 == 0 || r % 43 == 0) {
+			return true;
+		}
+
+		r = (int) (n % PRODUCT_47_61);
+
+		return r % 47 == 0 || r % 53 == 0 || r % 59 == 0 || r % 61 == 0;
+	}
+
+	/**
+	 * The Miller-Rabin rounds over the 7 deterministic bases
+	 *
+	 * @param n odd, greater than 2
+	 * @return true if n is a strong probable prime to every base, i.e. a prime
+	 */
+	static boolean strongProbablePrime(long n) {
+		long inverse = Montgomery.inverse(n);
+		long one = Montgomery.one(n);
+		long minusOne = n - one;
+		long rSquared = Montgomery.rSquared(n);
+
+		int s = Long.numberOfTrailingZeros(n - 1);
+		long d = (n - 1) >>> s;
+
+		for(long a : BASES) {
+			long x = Montgomery.toMontgomery(a, n, inverse, rSquared);
+
+			// a is a multiple of n, this base tells nothing
+			if(x == 0) {
+				continue;
+			}
+
+			x = Montgomery.pow(x, d, one, n, inverse);
+
+			if(x == one || x == minusOne) {
+				continue;
+			}
+
+			int i = 1;
+
+			for(; i < s; i++) {
+				x = Montgomery.multiply(x, x, n, inverse);
+
+				if(x == minusOne) {
+					break;
+				}
+			}
+
+			if(i == s) {
+				return false;
+			}
+		}
+
+		return true;
+	}
+
+	/**
+	 * Driver main method
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		long[] values = new long[1_000_000];
+		Random rand = new Random(42);
+
+		for(int i = 0; i < values.length; i++) {
+			values[i] = rand.nextLong() >>> 1;
+		}
+
+		long start = System.currentTimeMillis();
+		boolean[] result = isPrime(values);
+		int count = 0;
+
+		for(boolean prime : result) {
+			count += prime ? 1 : 0;
+		}
+
+		System.out.println(count + " primes among " + values.length + " random 63-bit numbers");
+		System.out.println("Miller-Rabin took " + (System.currentTimeMillis() - start) + "ms\n");
+
+		start = System.currentTimeMillis();
+		System.out.println("Largest long prime => " + Long.MAX_VALUE + " - " + (Long.MAX_VALUE - previousPrime(Long.MAX_VALUE)));
+		System.out.println("Previous prime took " + (System.currentTimeMillis() - start) + "ms");
+	}
+
+	/**
+	 * @param n
+	 * @return the largest prime lower than or equal to n
+	 */
+	private static long previousPrime(long n) {
+		while(!isPrime(n)) {
+			n--;
+		}
+
+		return n;
+	}
+}
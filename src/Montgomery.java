@@ -0,0 +1,174 @@
+
+/**
+ * https://en.wikipedia.org/wiki/Montgomery_modular_multiplication
+ *
+ * Modular multiplication for any odd modulus n < 2^63 without overflow and without division.<br /><br />
+ *
+ * Values are kept in Montgomery form {@code aR mod n} with {@code R = 2^64}. The product of two such values is
+ * reduced with REDC, which only needs the high and low halves of two 64 x 64 bit products:
+ *
+ * <pre>{@code
+ * t = a * b								(128 bits)
+ * m = low(t) * n^-1 mod 2^64				so that low(m * n) == low(t)
+ * REDC(t) = high(t) - high(m * n)			≡ t / R (mod n), in (-n, n)
+ * }</pre>
+ *
+ * Everything is static and works on primitives so that callers keep n, n^-1 and the operands in registers.
+ *
+ * @author Stéphan R.
+ *
+ */
+public final class Montgomery {
+
+	private Montgomery() {
+	}
+
+	/**
+	 * High 64 bits of the signed 128-bit product, as {@code Math.multiplyHigh} of Java 9
+	 *
+	 * @param x
+	 * @param y
+	 * @return
+	 */
+	static long multiplyHigh(long x, long y) {
+		long x1 = x >> 32;
+		long x2 = x & 0xFFFFFFFFL;
+		long y1 = y >> 32;
+		long y2 = y & 0xFFFFFFFFL;
+		long z2 = x2 * y2;
+		long t = x1 * y2 + (z2 >>> 32);
+		long z1 = (t & 0xFFFFFFFFL) + x2 * y1;
+		long z0 = t >> 32;
+
+		return x1 * y1 + z0 + (z1 >> 32);
+	}
+
+	/**
+	 * High 64 bits of the unsigned 128-bit product of x and a non negative y
+	 *
+	 * @param x read as unsigned
+	 * @param y
+	 * @return
+	 */
+	static long unsignedMultiplyHigh(long x, long y) {
+		return multiplyHigh(x, y) + ((x >> 63) & y);
+	}
+
+	/**
+	 * Newton iteration, each step doubles the number of correct low bits
+	 *
+	 * @param n odd
+	 *
+	 * @return n^-1 mod 2^64
+	 */
+	static long inverse(long n) {
+		if ((n & 1) == 0)
+			throw new IllegalArgumentException("Montgomery arithmetic needs an odd modulus: " + n);
+
+		// Correct on 5 bits
+		long x = (3 * n) ^ 2;
+
+		x *= 2 - n * x;
+		x *= 2 - n * x;
+		x *= 2 - n * x;
+		x *= 2 - n * x;
+
+		return x;
+	}
+
+	/**
+	 * @param n odd, positive
+	 *
+	 * @return R mod n, i.e. 1 in Montgomery form
+	 */
+	static long one(long n) {
+		return Long.remainderUnsigned(-n, n);
+	}
+
+	/**
+	 * @param n odd, positive
+	 *
+	 * @return R^2 mod n, used to bring values into Montgomery form
+	 */
+	static long rSquared(long n) {
+		long x = one(n);
+
+		for(int i = 0; i < 64; i++) {
+			// x < n < 2^63 so the shift cannot lose a bit
+			x <<= 1;
+
+			if(Long.compareUnsigned(x, n) >= 0) {
+				x -= n;
+			}
+		}
+
+		return x;
+	}
+
+	/**
+	 * REDC(a * b)
+	 *
+	 * @param a in [0, n)
+	 * @param b in [0, n)
+	 * @param n odd modulus below 2^63
+	 * @param inverse n^-1 mod 2^64
+	 *
+	 * @return a * b / R mod n, in [0, n)
+	 */
+	static long multiply(long a, long b, long n, long inverse) {
+		long high = multiplyHigh(a, b);
+		long m = a * b * inverse;
+		long r = high - unsignedMultiplyHigh(m, n);
+
+		return (r < 0) ? r + n : r;
+	}
+
+	/**
+	 * @param a any non negative value
+	 * @param n
+	 * @param inverse
+	 * @param rSquared R^2 mod n
+	 *
+	 * @return aR mod n
+	 */
+	static long toMontgomery(long a, long n, long inverse, long rSquared) {
+		return multiply(a % n, rSquared, n, inverse);
+	}
+
+	/**
+	 * @param a in Montgomery form
+	 * @param n
+	 * @param inverse
+	 *
+	 * @return a / R mod n, the plain value
+	 */
+	static long fromMontgomery(long a, long n, long inverse) {
+		return multiply(a, 1, n, inverse);
+	}
+
+	/**
+	 * Right-to-left binary exponentiation
+	 *
+	 * @param base in Montgomery form
+	 * @param exponent non negative
+	 * @param one R mod n
+	 * @param n
+	 * @param inverse
+	 *
+	 * @return base^exponent in Montgomery form
+	 */
+	static long pow(long base, long exponent, long one, long n, long inverse) {
+		long result = one;
+
+		while(exponent != 0) {
+			if((exponent & 1) != 0) {
+				result = multiply(result, base, n, inverse);
+			}
+
+			base = multiply(base, base, n, inverse);
+			exponent >>>= 1;
+		}
+
+		return result;
+	}
+}
@@ -0,0 +1,528 @@
+import java.math.BigInteger;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.function.Consumer;
+
+/**
+ * https://en.wikipedia.org/wiki/M%C3%B6bius_function
+ * https://en.wikipedia.org/wiki/Euler%27s_totient_function
+ * https://en.wikipedia.org/wiki/Divisor_function
+ * https://cp-algorithms.com/algebra/prime-sieve-linear.html
+ * https://en.wikipedia.org/wiki/Mertens_function
+ *
+ * Tables of the Möbius function mu, Euler's totient phi, the number of divisors tau and the sum of divisors
+ * sigma over a range of integers, all filled in a single pass.<br /><br />
+ *
+ * <pre>{@code
+ * Linear sieve over [0, n), every i * p with p <= spf(i) is reached once:
+ * 	p < spf(i)		f(i * p) = f(i) * f(p)				the functions are multiplicative
+ * 	p = spf(i)		mu(i * p) = 0, phi(i * p) = phi(i) * p
+ * 					with i = m * p^e, tau(i * p) = tau(i) + tau(m) and sigma(i * p) = sigma(i) * p + sigma(m)
+ *
+ * Segmented sieve over [low, high):
+ * 	For each prime p <= √high
+ * 		update every multiple of p as if p divided it exactly once
+ * 		then fix the multiples of p^2 with the actual power of p
+ * 	Dividing a number by the product of the prime powers found leaves 1 or a prime greater than √high
+ * }</pre>
+ *
+ * The linear sieve needs 21 bytes per number. Beyond a few hundred million, walk the range with
+ * {@link #forEachSegment} or {@link #parallelForEachSegment} instead: memory stays bounded by the segment size
+ * times the number of threads.
+ *
+ * @author Stéphan R.
+ *
+ */
+public class MultiplicativeFunctions {
+
+	/**
+	 * 2^20 numbers, about 21MB of tables
+	 */
+	static final int DEFAULT_SEGMENT = 1 << 20;
+
+	/**
+	 * Largest prefix table of {@link #totientSum(long)} and {@link #mertens(long)}, 64MB
+	 */
+	private static final int MAX_TABLE = 1 << 23;
+
+	private final int low;
+	private final byte[] mu;
+	private final int[] phi;
+	private final int[] tau;
+	private final long[] sigma;
+
+	private MultiplicativeFunctions(int low, int length) {
+		this.low = low;
+		this.mu = new byte[length];
+		this.phi = new int[length];
+		this.tau = new int[length];
+		this.sigma = new long[length];
+	}
+
+	/**
+	 * Linear sieve
+	 *
+	 * @param n the limit (exclusive)
+	 * @return the functions over [0, n), every function is 0 at 0
+	 */
+	static MultiplicativeFunctions sieve(int n) {
+		if (n < 0)
+			throw new IllegalArgumentException("Negative number");
+
+		MultiplicativeFunctions f = new MultiplicativeFunctions(0, n);
+
+		if(n < 2) {
+			return f.one();
+		}
+
+		// Largest power of the smallest prime factor dividing i
+		int[] power = new int[n];
+		int[] primes = new int[(int) (1.25506 * n / Math.log(n)) + 16];
+		int count = 0;
+
+		f.one();
+
+		for(int i = 2; i < n; i++) {
+			if(power[i] == 0) {
+				primes[count++] = i;
+				power[i] = i;
+				f.mu[i] = -1;
+				f.phi[i] = i - 1;
+				f.tau[i] = 2;
+				f.sigma[i] = i + 1L;
+			}
+
+			for(int k = 0; k < count; k++) {
+				int p = primes[k];
+				long product = (long) i * p;
+
+				if(product >= n) {
+					break;
+				}
+
+				int j = (int) product;
+
+				if(i % p == 0) {
+					int m = i / power[i];
+
+					power[j] = power[i] * p;
+					f.phi[j] = f.phi[i] * p;
+					f.tau[j] = f.tau[i] + f.tau[m];
+					f.sigma[j] = f.sigma[i] * p + f.sigma[m];
+					break;
+				}
+
+				power[j] = p;
+				f.mu[j] = (byte) -f.mu[i];
+				f.phi[j] = f.phi[i] * (p - 1);
+				f.tau[j] = f.tau[i] << 1;
+				f.sigma[j] = f.sigma[i] * (p + 1);
+			}
+		}
+
+		return f;
+	}
+
+	/**
+	 * Set the values of 1 if it is in range
+	 */
+	private MultiplicativeFunctions one() {
+		if(low <= 1 && 1 < low + mu.length) {
+			mu[1 - low] = 1;
+			phi[1 - low] = 1;
+			tau[1 - low] = 1;
+			sigma[1 - low] = 1;
+		}
+
+		return this;
+	}
+
+	/**
+	 * Segmented sieve
+	 *
+	 * @param low inclusive
+	 * @param high exclusive
+	 * @param basePrimes at least every prime p with p * p < high, in increasing order
+	 *
+	 * @return the functions over [low, high)
+	 */
+	static MultiplicativeFunctions segment(int low, int high, int[] basePrimes) {
+		if (low < 0 || high < low)
+			throw new IllegalArgumentException("Invalid range [" + low + ", " + high + ")");
+
+		int length = high - low;
+		MultiplicativeFunctions f = new MultiplicativeFunctions(low, length);
+
+		// Product of the prime powers found so far
+		int[] found = new int[length];
+
+		for(int i = 0; i < length; i++) {
+			found[i] = 1;
+
+			if(low + i > 0) {
+				f.mu[i] = 1;
+				f.phi[i] = 1;
+				f.tau[i] = 1;
+				f.sigma[i] = 1;
+			}
+		}
+
+		for(int p : basePrimes) {
+			long square = (long) p * p;
+
+			if(square >= high) {
+				break;
+			}
+
+			// Every multiple as if p divided it once, no division involved
+			for(long m = Math.max(p, ((low + p - 1L) / p) * p); m < high; m += p) {
+				int i = (int) (m - low);
+
+				f.mu[i] = (byte) -f.mu[i];
+				f.phi[i] *= p - 1;
+				f.tau[i] <<= 1;
+				f.sigma[i] *= p + 1;
+				found[i] *= p;
+			}
+
+			// Then correct the multiples of p^2, far fewer
+			for(long m = Math.max(square, ((low + square - 1) / square) * square); m < high; m += square) {
+				int i = (int) (m - low);
+				int e = 2;
+				long power = square;
+
+				while((m / power) % p == 0) {
+					power *= p;
+					e++;
+				}
+
+				f.mu[i] = 0;
+				f.phi[i] *= (int) (power / p);
+				f.tau[i] = (f.tau[i] >>> 1) * (e + 1);
+				f.sigma[i] = f.sigma[i] / (p + 1) * ((power * p - 1) / (p - 1));
+				found[i] *= (int) (power / p);
+			}
+		}
+
+		for(int i = 0; i < length; i++) {
+			int q = (low + i) / found[i];
+
+			// A single prime above √high is left
+			if(q > 1) {
+				f.mu[i] = (byte) -f.mu[i];
+				f.phi[i] *= q - 1;
+				f.tau[i] <<= 1;
+				f.sigma[i] *= q + 1L;
+			}
+		}
+
+		return f;
+	}
+
+	/**
+	 * Walk [0, n) one segment at a time, only one segment is alive at any time
+	 *
+	 * @param n the limit (exclusive)
+	 * @param length numbers per segment
+	 * @param action receives the segments in increasing order
+	 */
+	static void forEachSegment(int n, int length, Consumer<MultiplicativeFunctions> action) {
+		int[] basePrimes = basePrimes(n);
+
+		for(long low = 0; low < n; low += length) {
+			action.accept(segment((int) low, (int) Math.min(low + length, n), basePrimes));
+		}
+	}
+
+	/**
+	 * Walk [0, n) with the segments spread over pool. Action is called concurrently and in no particular order,
+	 * at most one segment per worker thread is alive at any time.
+	 *
+	 * @param n the limit (exclusive)
+	 * @param length numbers per segment
+	 * @param action
+	 * @param pool
+	 */
+	static void parallelForEachSegment(int n, int length, Consumer<MultiplicativeFunctions> action, ForkJoinPool pool) {
+		if (length <= 0)
+			throw new IllegalArgumentException("Invalid segment length " + length);
+
+		int segments = (int) ((n + (long) length - 1) / length);
+
+		if(segments > 0) {
+			pool.invoke(new SegmentTask(n, length, basePrimes(n), action, 0, segments));
+		}
+	}
+
+	private static int[] basePrimes(int n) {
+		int root = (int) SieveSegment.isqrt(Math.max(n - 1, 0)) + 1;
+
+		return SharedPrimeTable.shared().snapshot(root + 1).toArray(root + 1);
+	}
+
+	/**
+	 * Computes the segments [from, to) and hands them to the action
+	 */
+	private static final class SegmentTask extends RecursiveAction {
+
+		private static final long serialVersionUID = 1L;
+
+		private final int n;
+		private final int length;
+		private final int[] basePrimes;
+		private final Consumer<MultiplicativeFunctions> action;
+		private final int from;
+		private final int to;
+
+		SegmentTask(int n, int length, int[] basePrimes, Consumer<MultiplicativeFunctions> action, int from, int to) {
+			this.n = n;
+			this.length = length;
+			this.basePrimes = basePrimes;
+			this.action = action;
+			this.from = from;
+			this.to = to;
+		}
+
+		@Override
+		protected void compute() {
+			if(to - from > 1) {
+				int middle = (from + to) >>> 1;
+
+				invokeAll(new SegmentTask(n, length, basePrimes, action, from, middle),
+						new SegmentTask(n, length, basePrimes, action, middle, to));
+
+				return;
+			}
+
+			long low = (long) from * length;
+
+			action.accept(segment((int) low, (int) Math.min(low + length, n), basePrimes));
+		}
+	}
+
+	/**
+	 * @return the first number of the range
+	 */
+	int low() {
+		return low;
+	}
+
+	/**
+	 * @return the end of the range (exclusive)
+	 */
+	int high() {
+		return low + mu.length;
+	}
+
+	/**
+	 * @param n in [low, high)
+	 * @return the Möbius function of n
+	 */
+	int mu(int n) {
+		return mu[n - low];
+	}
+
+	/**
+	 * @param n in [low, high)
+	 * @return the number of integers in [1, n] coprime to n
+	 */
+	int phi(int n) {
+		return phi[n - low];
+	}
+
+	/**
+	 * @param n in [low, high)
+	 * @return the number of divisors of n
+	 */
+	int tau(int n) {
+		return tau[n - low];
+	}
+
+	/**
+	 * @param n in [low, high)
+	 * @return the sum of the divisors of n
+	 */
+	long sigma(int n) {
+		return sigma[n - low];
+	}
+
+	/**
+	 * Summatory totient, {@code Φ(n) = phi(1) + ... + phi(n)}, with the Dirichlet hyperbola method (Du's sieve).
+	 *
+	 * <pre>{@code
+	 * Sum of phi(d) over the divisors d of m is m, summed for m <= n:
+	 * 	n (n + 1) / 2 = Σ Φ(n / l) for l in [1, n]
+	 * 	Φ(n) = n (n + 1) / 2 - Σ Φ(n / l) for l in [2, n]
+	 * n / l takes O(√n) distinct values, each range of l sharing one is summed at once
+	 * }</pre>
+	 *
+	 * See {@link #hyperbola(long, long[], boolean)} for the tables. Φ(n) needs more than 64 bits past
+	 * n ≈ 5·10^9: the recurrence is run modulo 2^64 and the multiple of 2^64 is recovered from
+	 * {@code Φ(n) = 3n^2 / π^2 + O(n log n)}, which is exact for any n this method has the time for.
+	 *
+	 * @param n non negative
+	 *
+	 * @return Φ(n), 0 for 0
+	 */
+	static BigInteger totientSum(long n) {
+		if (n < 0)
+			throw new IllegalArgumentException("Negative number");
+
+		long wrapped = hyperbola(n, prefixTable(tableSize(n), true), true);
+		BigInteger low = BigInteger.valueOf(wrapped & Long.MAX_VALUE);
+
+		if(wrapped < 0) {
+			low = low.setBit(63);
+		}
+
+		double estimate = 3 / (Math.PI * Math.PI) * n * n;
+		long high = Math.round((estimate - low.doubleValue()) / 0x1p64);
+
+		return BigInteger.valueOf(high).shiftLeft(64).add(low);
+	}
+
+	/**
+	 * Mertens function, {@code M(n) = mu(1) + ... + mu(n)}, as {@link #totientSum(long)} from
+	 * {@code Σ M(n / l) for l in [1, n] = 1}
+	 *
+	 * @param n non negative
+	 *
+	 * @return M(n), 0 for 0
+	 */
+	static long mertens(long n) {
+		if (n < 0)
+			throw new IllegalArgumentException("Negative number");
+
+		return hyperbola(n, prefixTable(tableSize(n), false), false);
+	}
+
+	/**
+	 * About n^(2/3) balances the sieve against the sums, capped by {@link #MAX_TABLE}
+	 */
+	private static int tableSize(long n) {
+		long root = SieveSegment.isqrt(n);
+		long size = Math.max((long) Math.cbrt((double) n * n), root + 1);
+
+		return (int) Math.min(Math.min(size, n), MAX_TABLE);
+	}
+
+	/**
+	 * @param n the table holds [0, n]
+	 * @param totient sums phi, else mu
+	 *
+	 * @return the prefix sums, walked segment by segment
+	 */
+	private static long[] prefixTable(int n, final boolean totient) {
+		final long[] prefix = new long[n + 1];
+
+		forEachSegment(n + 1, DEFAULT_SEGMENT, new Consumer<MultiplicativeFunctions>() {
+			@Override
+			public void accept(MultiplicativeFunctions segment) {
+				for(int i = Math.max(segment.low(), 1); i < segment.high(); i++) {
+					prefix[i] = prefix[i - 1] + (totient ? segment.phi(i) : segment.mu(i));
+				}
+			}
+		});
+
+		return prefix;
+	}
+
+	/**
+	 * <pre>{@code
+	 * S(x) = F(x) - Σ (r - l + 1) S(x / l) over the ranges [l, r] of equal x / l, l >= 2
+	 * 	F(x) = x (x + 1) / 2 for the totient, 1 for the Möbius function
+	 * }</pre>
+	 *
+	 * Only the values {@code x = n / k} are needed: those up to the size t of the small table are read from it,
+	 * the larger ones are kept in an array indexed by k and computed from the largest k down, as
+	 * {@code (n / k) / l = n / (k l)} is either small or already there. This gives O(t + n / √t) time, about
+	 * O(n^(2/3)) until the table is capped.
+	 *
+	 * @param n
+	 * @param small prefix sums over [0, t]
+	 * @param totient
+	 *
+	 * @return S(n), modulo 2^64 for the totient
+	 */
+	private static long hyperbola(long n, long[] small, boolean totient) {
+		int t = small.length - 1;
+
+		if(n <= t) {
+			return small[(int) n];
+		}
+
+		int count = (int) (n / (t + 1));
+		long[] large = new long[count + 1];
+
+		for(int k = count; k >= 1; k--) {
+			long x = n / k;
+			long s = totient ? triangle(x) : 1;
+
+			for(long l = 2, r; l <= x; l = r + 1) {
+				long q = x / l;
+
+				r = x / q;
+				s -= (r - l + 1) * ((q <= t) ? small[(int) q] : large[(int) (k * l)]);
+			}
+
+			large[k] = s;
+		}
+
+		return large[1];
+	}
+
+	/**
+	 * @return x (x + 1) / 2 modulo 2^64
+	 */
+	private static long triangle(long x) {
+		return ((x & 1) == 0) ? (x >> 1) * (x + 1) : x * ((x + 1) >> 1);
+	}
+
+	/**
+	 * Driver main method
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		int n = 20_000_000;
+
+		long start = System.currentTimeMillis();
+		MultiplicativeFunctions f = sieve(n);
+		long sum = 0;
+
+		for(int i = 1; i < n; i++) {
+			sum += f.phi(i);
+		}
+
+		System.out.println("Sum of phi below " + n + " => " + sum);
+		System.out.println("Linear sieve took " + (System.currentTimeMillis() - start) + "ms\n");
+
+		f = null;
+
+		final long[] total = new long[1];
+
+		start = System.currentTimeMillis();
+		parallelForEachSegment(n, DEFAULT_SEGMENT, new Consumer<MultiplicativeFunctions>() {
+			@Override
+			public void accept(MultiplicativeFunctions segment) {
+				long partial = 0;
+
+				for(int i = Math.max(segment.low(), 1); i < segment.high(); i++) {
+					partial += segment.phi(i);
+				}
+
+				synchronized(total) {
+					total[0] += partial;
+				}
+			}
+		}, ForkJoinPool.commonPool());
+
+		System.out.println("Sum of phi below " + n + " => " + total[0]);
+		System.out.println("Parallel segmented sieve took " + (System.currentTimeMillis() - start) + "ms\n");
+
+		start = System.currentTimeMillis();
+		System.out.println("Sum of phi up to 10^11 => " + totientSum(100_000_000_000L));
+		System.out.println("Mertens(10^11) => " + mertens(100_000_000_000L));
+		System.out.println("Dirichlet hyperbola took " + (System.currentTimeMillis() - start) + "ms");
+	}
+}
@@ -0,0 +1,302 @@
+import java.math.BigInteger;
+import java.util.Arrays;
+
+/**
+ * https://en.wikipedia.org/wiki/Pollard%27s_p_%E2%88%92_1_algorithm
+ *
+ * Pollard's p - 1 method for long and BigInteger.<br /><br />
+ *
+ * By Fermat, a^M ≡ 1 (mod p) as soon as p - 1 divides M. Taking for M every prime power below B1 finds the
+ * primes p whose p - 1 is B1-smooth, and the second stage also finds those with a single prime factor of
+ * p - 1 in (B1, B2].
+ *
+ * <pre>{@code
+ * Stage 1:	a = 2^M mod n, M the product of the prime powers below B1
+ * 		g = gcd(a - 1, n)
+ * Stage 2:	For each prime B1 < q <= B2, walking from one to the next with a table of gaps
+ * 			a^q = a^(previous q) * a^gap, the powers a^gap being precomputed
+ * 			accumulate a^q - 1
+ * 		g = gcd(product, n)
+ * }</pre>
+ *
+ * Very cheap compared to Pollard Rho, which is why {@link IntegerFactorization#factorize(long)} runs it first.
+ * The prime powers and the gaps come from the {@link SharedPrimeTable}.
+ *
+ * @author Stéphan R.
+ *
+ */
+public class PollardPMinusOne {
+
+	static final int DEFAULT_B1 = 1_000;
+	static final int DEFAULT_B2 = 30_000;
+
+	/**
+	 * Stage 1 exponents and stage 2 gaps for one pair of bounds
+	 */
+	private static final class Tables {
+
+		final int b1;
+		final int b2;
+
+		/**
+		 * Primes below B1, each with its largest power below B1
+		 */
+		final int[] primes;
+		final int[] powers;
+
+		/**
+		 * Products of consecutive prime powers, each below 2^63
+		 */
+		final long[] exponents;
+
+		/**
+		 * First prime above B1, then the half gaps to the next primes up to B2
+		 */
+		final int first;
+		final byte[] gaps;
+		final int maxGap;
+
+		Tables(int b1, int b2) {
+			if (b1 < 2 || b2 < b1 || b2 == Integer.MAX_VALUE)
+				throw new IllegalArgumentException("Invalid bounds B1 = " + b1 + ", B2 = " + b2);
+
+			PrimeBitSet table = SharedPrimeTable.shared().snapshot(b2 + 1);
+
+			this.b1 = b1;
+			this.b2 = b2;
+			this.primes = table.toArray(b1 + 1);
+			this.powers = new int[primes.length];
+
+			long[] chunks = new long[primes.length];
+			int count = 0;
+			long chunk = 1;
+
+			for(int i = 0; i < primes.length; i++) {
+				long p = primes[i];
+				long power = p;
+
+				while(power * p <= b1) {
+					power *= p;
+				}
+
+				powers[i] = (int) power;
+
+				if(chunk > Long.MAX_VALUE / power) {
+					chunks[count++] = chunk;
+					chunk = 1;
+				}
+
+				chunk *= power;
+			}
+
+			chunks[count++] = chunk;
+			this.exponents = Arrays.copyOf(chunks, count);
+
+			int q = table.nextPrime(b1 + 1);
+			byte[] g = new byte[Math.max(0, (b2 - b1) >>> 1)];
+			int length = 0;
+			int max = 0;
+
+			this.first = q;
+
+			for(int next = (q < 0) ? -1 : table.nextPrime(q + 1); next > 0 && next <= b2; next = table.nextPrime(q + 1)) {
+				int gap = (next - q) >>> 1;
+
+				g[length++] = (byte) gap;
+				max = Math.max(max, gap);
+				q = next;
+			}
+
+			this.gaps = Arrays.copyOf(g, length);
+			this.maxGap = max;
+		}
+	}
+
+	/**
+	 * The tables of the last bounds used, rebuilt when the bounds change
+	 */
+	private static volatile Tables cache = null;
+
+	private static Tables tables(int b1, int b2) {
+		Tables tables = cache;
+
+		if(tables == null || tables.b1 != b1 || tables.b2 != b2) {
+			tables = new Tables(b1, b2);
+			cache = tables;
+		}
+
+		return tables;
+	}
+
+	/**
+	 * @param n odd, greater than 2
+	 * @return a non trivial factor of n, or 0 if none was found with the default bounds
+	 */
+	static long findFactor(long n) {
+		return findFactor(n, DEFAULT_B1, DEFAULT_B2);
+	}
+
+	/**
+	 * All products are done with {@link Montgomery} arithmetic
+	 *
+	 * @param n odd, greater than 2
+	 * @param b1 stage 1 bound
+	 * @param b2 stage 2 bound, at least b1
+	 *
+	 * @return a non trivial factor of n, or 0 if none was found
+	 */
+	static long findFactor(long n, int b1, int b2) {
+		if (n < 3 || (n & 1) == 0)
+			throw new IllegalArgumentException("Not an odd number greater than 2: " + n);
+
+		Tables tables = tables(b1, b2);
+		long inverse = Montgomery.inverse(n);
+		long one = Montgomery.one(n);
+		long two = Montgomery.toMontgomery(2, n, inverse, Montgomery.rSquared(n));
+		long a = two;
+
+		for(long exponent : tables.exponents) {
+			a = Montgomery.pow(a, exponent, one, n, inverse);
+		}
+
+		long g = GreatestCommonDivisor.binary(subtract(a, one, n), n);
+
+		if(g == n) {
+			// Every prime factor was caught at once, go back one prime power at a time
+			a = two;
+
+			for(int i = 0; i < tables.primes.length; i++) {
+				a = Montgomery.pow(a, tables.powers[i], one, n, inverse);
+				g = GreatestCommonDivisor.binary(subtract(a, one, n), n);
+
+				if(g != 1) {
+					return (g == n) ? 0 : g;
+				}
+			}
+		}
+
+		if(g != 1) {
+			return g;
+		}
+
+		if(tables.first < 0 || tables.first > b2) {
+			return 0;
+		}
+
+		long[] steps = new long[tables.maxGap + 1];
+
+		if(steps.length > 1) {
+			steps[1] = Montgomery.multiply(a, a, n, inverse);
+
+			for(int d = 2; d < steps.length; d++) {
+				steps[d] = Montgomery.multiply(steps[d - 1], steps[1], n, inverse);
+			}
+		}
+
+		long x = Montgomery.pow(a, tables.first, one, n, inverse);
+		long product = subtract(x, one, n);
+
+		for(byte gap : tables.gaps) {
+			x = Montgomery.multiply(x, steps[gap & 0xFF], n, inverse);
+			product = Montgomery.multiply(product, subtract(x, one, n), n, inverse);
+		}
+
+		g = GreatestCommonDivisor.binary(product, n);
+
+		return (g == 1 || g == n) ? 0 : g;
+	}
+
+	/**
+	 * @return (a - b) mod n for a, b in [0, n)
+	 */
+	private static long subtract(long a, long b, long n) {
+		long difference = a - b;
+
+		return (difference < 0) ? difference + n : difference;
+	}
+
+	/**
+	 * @param n odd, greater than 2
+	 * @param b1 stage 1 bound
+	 * @param b2 stage 2 bound, at least b1
+	 *
+	 * @return a non trivial factor of n, or null if none was found
+	 */
+	static BigInteger findFactor(BigInteger n, int b1, int b2) {
+		if (n.compareTo(BigInteger.valueOf(3)) < 0 || !n.testBit(0))
+			throw new IllegalArgumentException("Not an odd number greater than 2: " + n);
+
+		Tables tables = tables(b1, b2);
+		BigInteger two = BigInteger.valueOf(2);
+		BigInteger a = two;
+
+		for(long exponent : tables.exponents) {
+			a = a.modPow(BigInteger.valueOf(exponent), n);
+		}
+
+		BigInteger g = a.subtract(BigInteger.ONE).gcd(n);
+
+		if(g.equals(n)) {
+			a = two;
+
+			for(int i = 0; i < tables.primes.length; i++) {
+				a = a.modPow(BigInteger.valueOf(tables.powers[i]), n);
+				g = a.subtract(BigInteger.ONE).gcd(n);
+
+				if(!g.equals(BigInteger.ONE)) {
+					return g.equals(n) ? null : g;
+				}
+			}
+		}
+
+		if(!g.equals(BigInteger.ONE)) {
+			return g;
+		}
+
+		if(tables.first < 0 || tables.first > b2) {
+			return null;
+		}
+
+		BigInteger[] steps = new BigInteger[tables.maxGap + 1];
+
+		if(steps.length > 1) {
+			steps[1] = a.multiply(a).mod(n);
+
+			for(int d = 2; d < steps.length; d++) {
+				steps[d] = steps[d - 1].multiply(steps[1]).mod(n);
+			}
+		}
+
+		BigInteger x = a.modPow(BigInteger.valueOf(tables.first), n);
+		BigInteger product = x.subtract(BigInteger.ONE);
+
+		for(byte gap : tables.gaps) {
+			x = x.multiply(steps[gap & 0xFF]).mod(n);
+			product = product.multiply(x.subtract(BigInteger.ONE)).mod(n);
+		}
+
+		g = product.gcd(n);
+
+		return (g.equals(BigInteger.ONE) || g.equals(n)) ? null : g;
+	}
+
+	/**
+	 * Driver main method
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		// 1000000007 - 1 = 2 * 500000003 is not smooth, 2147483647 - 1 = 2 * 3^2 * 7 * 11 * 31 * 151 * 331 is
+		long n = 1000000007L * 2147483647L;
+
+		long start = System.currentTimeMillis();
+		System.out.println("Factor of " + n + " => " + findFactor(n));
+		System.out.println("Pollard p - 1 took " + (System.currentTimeMillis() - start) + "ms\n");
+
+		BigInteger m = BigInteger.valueOf(2).pow(127).subtract(BigInteger.ONE).multiply(BigInteger.valueOf(2147483647));
+
+		start = System.currentTimeMillis();
+		System.out.println("Factor of " + m + " => " + findFactor(m, DEFAULT_B1, DEFAULT_B2));
+		System.out.println("Pollard p - 1 took " + (System.currentTimeMillis() - start) + "ms");
+	}
+}
@@ -0,0 +1,278 @@
+import java.util.Arrays;
+
+/**
+ * Bit-packed Sieve Of Eratosthenes that only stores odd numbers.<br /><br />
+ *
+ * Bit {@code i} of the word array stands for the odd number {@code 2i + 1} and is set once that number
+ * is known to be composite, so one {@code long} covers 128 integers. Compared to a {@code boolean[]} of
+ * size n this is a 16x reduction in memory.
+ *
+ * <pre>{@code
+ * Find all odd primes p with p * p < n using a small simple sieve
+ *
+ * 	For each block of BLOCK_BITS odd numbers
+ * 		For each odd prime p
+ * 			Mark every odd multiple of p, starting at max(p * p, first multiple in the block)
+ * 			Remember where the next block has to resume
+ * }</pre>
+ *
+ * Working block by block keeps the marking loops within a cache sized window of the word array instead of
+ * sweeping the whole table once per prime.
+ *
+ * @author Stéphan R.
+ *
+ */
+public class PrimeBitSet implements PrimeTable {
+
+	/**
+	 * Number of odd numbers sieved per block: 2^20 bits, i.e. 128KB of words
+	 */
+	private static final int BLOCK_BITS = 1 << 20;
+
+	private final long[] words;
+	private final int limit;
+
+	/**
+	 * Sieve all primes below n
+	 *
+	 * @param n the limit (exclusive)
+	 */
+	PrimeBitSet(int n) {
+		this(null, n);
+	}
+
+	/**
+	 * Extend prefix up to n: its words are copied and only [prefix.limit(), n) is sieved
+	 *
+	 * @param prefix an existing sieve, may be null
+	 * @param n the limit (exclusive), at least the limit of prefix
+	 */
+	PrimeBitSet(PrimeBitSet prefix, int n) {
+		if (n < 0)
+			throw new IllegalArgumentException("Negative number");
+
+		if (prefix != null && prefix.limit > n)
+			throw new IllegalArgumentException("Cannot shrink a sieve from " + prefix.limit + " to " + n);
+
+		int bits = n >>> 1;
+		int from = 0;
+
+		this.limit = n;
+		this.words = new long[(bits + 63) >>> 6];
+
+		if(prefix != null) {
+			// Every bit of the prefix below its own limit is final, the rest is sieved again
+			from = prefix.limit >>> 1;
+			System.arraycopy(prefix.words, 0, words, 0, from >>> 6);
+
+			if((from & 63) != 0) {
+				words[from >>> 6] = prefix.words[from >>> 6] & ((1L << from) - 1);
+			}
+		}
+
+		if(bits == 0) {
+			return;
+		}
+
+		// 1 is not a prime
+		words[0] |= 1L;
+
+		// Bits past the limit are marked so that count() can rely on bitCount
+		if((bits & 63) != 0) {
+			words[words.length - 1] |= -1L << bits;
+		}
+
+		int[] basePrimes = basePrimes(n);
+		int[] next = new int[basePrimes.length];
+
+		for(int i = 0; i < basePrimes.length; i++) {
+			int p = basePrimes[i];
+			int square = (p * p) >>> 1;
+
+			// Bit j is an odd multiple of p when j ≡ (p - 1) / 2 (mod p)
+			next[i] = (square >= from) ? square : from + (int) (((p >>> 1) - (long) from % p + p) % p);
+		}
+
+		for(int low = from; low < bits; low += BLOCK_BITS) {
+			int high = (int) Math.min((long) low + BLOCK_BITS, bits);
+
+			for(int i = 0; i < basePrimes.length; i++) {
+				int p = basePrimes[i];
+				int j = next[i];
+
+				for(; j < high; j += p) {
+					words[j >>> 6] |= 1L << j;
+				}
+
+				next[i] = j;
+			}
+		}
+	}
+
+	/**
+	 * Odd primes p such that p * p < n, using a simple boolean sieve up to sqrt(n)
+	 *
+	 * @param n
+	 * @return
+	 */
+	private static int[] basePrimes(int n) {
+		int root = (int) Math.sqrt(n);
+
+		while((long) root * root >= n && root > 0) {
+			root--;
+		}
+
+		boolean[] composite = new boolean[root + 1];
+		int[] primes = new int[(root + 1) >> 1];
+		int count = 0;
+
+		for(int i = 3; i <= root; i += 2) {
+			if(!composite[i]) {
+				primes[count++] = i;
+
+				for(int j = i * i; j <= root; j += 2 * i) {
+					composite[j] = true;
+				}
+			}
+		}
+
+		int[] result = new int[count];
+		System.arraycopy(primes, 0, result, 0, count);
+
+		return result;
+	}
+
+	/**
+	 * @param n a number in [0, limit)
+	 * @return true if n is prime
+	 */
+	@Override
+	public boolean isPrime(int n) {
+		if(n < 0 || n >= limit)
+			throw new IllegalArgumentException(n + " is outside of the sieved range [0, " + limit + ")");
+
+		if((n & 1) == 0) {
+			return n == 2;
+		}
+
+		return (words[n >>> 7] & (1L << (n >>> 1))) == 0;
+	}
+
+	/**
+	 * @return the exclusive upper bound of the sieve
+	 */
+	@Override
+	public int limit() {
+		return limit;
+	}
+
+	/**
+	 * @param n
+	 * @return the smallest prime greater than or equal to n, or -1 if there is none below the limit
+	 */
+	int nextPrime(int n) {
+		if(n <= 2) {
+			return (limit > 2) ? 2 : -1;
+		}
+
+		if(n >= limit) {
+			return -1;
+		}
+
+		// First odd number >= n
+		int bit = n >>> 1;
+		int w = bit >>> 6;
+		long word = ~words[w] & (-1L << bit);
+
+		while(word == 0) {
+			if(++w == words.length) {
+				return -1;
+			}
+
+			word = ~words[w];
+		}
+
+		return (((w << 6) + Long.numberOfTrailingZeros(word)) << 1) + 1;
+	}
+
+	/**
+	 * @return the number of primes below the limit
+	 */
+	int count() {
+		if(limit <= 2) {
+			return 0;
+		}
+
+		int composites = 0;
+
+		for(long word : words) {
+			composites += Long.bitCount(word);
+		}
+
+		// Every odd slot minus the composite ones, plus the even prime 2
+		return (words.length << 6) - composites + 1;
+	}
+
+	/**
+	 * @return all primes below the limit, in increasing order and without trailing zeros
+	 */
+	int[] toArray() {
+		return toArray(limit);
+	}
+
+	/**
+	 * @param to exclusive, at most the limit
+	 * @return all primes below to, in increasing order and without trailing zeros
+	 */
+	int[] toArray(int to) {
+		if (to < 0 || to > limit)
+			throw new IllegalArgumentException(to + " is outside of the sieved range [0, " + limit + "]");
+
+		if(to <= 2) {
+			return new int[0];
+		}
+
+		int length = ((to >>> 1) + 63) >>> 6;
+		int composites = 0;
+
+		for(int w = 0; w < length; w++) {
+			composites += Long.bitCount(words[w]);
+		}
+
+		int[] primes = new int[(length << 6) - composites + 1];
+		int index = 0;
+
+		primes[index++] = 2;
+
+		for(int w = 0; w < length; w++) {
+			long word = ~words[w];
+
+			while(word != 0) {
+				int bit = Long.numberOfTrailingZeros(word);
+				primes[index++] = (((w << 6) + bit) << 1) + 1;
+				word &= word - 1;
+			}
+		}
+
+		// The last word may run past to
+		while(index > 0 && primes[index - 1] >= to) {
+			index--;
+		}
+
+		return (index == primes.length) ? primes : Arrays.copyOf(primes, index);
+	}
+
+	/**
+	 * @return the backing word array, bit {@code i} set when {@code 2i + 1} is composite (not a copy)
+	 */
+	long[] words() {
+		return words;
+	}
+
+	/**
+	 * @return the number of bytes held by the bit array
+	 */
+	long memoryBytes() {
+		return (long) words.length << 3;
+	}
+}
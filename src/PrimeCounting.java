@@ -0,0 +1,227 @@
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * https://en.wikipedia.org/wiki/Prime-counting_function
+ * https://en.wikipedia.org/wiki/Meissel%E2%80%93Lehmer_algorithm
+ * https://projecteuler.net/thread=10;page=5#111677 (Lucy_Hedgehog)
+ * https://en.wikipedia.org/wiki/Prime_number_theorem#Approximations_for_the_nth_prime_number
+ *
+ * @author Stéphan R.
+ *
+ */
+public class PrimeCounting {
+
+	/**
+	 * Prime-counting function using the Lucy_Hedgehog dynamic programming, a simplified Meissel-Lehmer.
+	 *
+	 * <pre>{@code
+	 * S(v, p) = numbers in [2, v] that are prime or whose smallest prime factor is greater than p
+	 *
+	 * 	S(v, 1) = v - 1
+	 * 	S(v, p) = S(v, p - 1) - (S(v / p, p - 1) - S(p - 1, p - 1))	when p is prime and p * p <= v
+	 * 	S(v, p) = S(v, p - 1)											otherwise
+	 *
+	 * 	pi(x) = S(x, √x)
+	 * }</pre>
+	 *
+	 * Only the values {@code v = x / i} are ever needed. As in Lagarias-Miller-Odlyzko they are split at
+	 * {@code y ≈ (x / ln x)^(2/3)}:
+	 *
+	 * 	- the large ones, {@code v > y}, are kept in an array indexed by i and updated with the recurrence
+	 * 	- the small ones are not stored: S(v) is read from an odd-only sieve of [1, y] in which the multiples of
+	 * 	  each processed prime are crossed off, with a Fenwick tree over its 64-bit words answering prefix counts
+	 *
+	 * This gives about O(x^(2/3) (log x)^(1/3)) time and y / 16 + y / 32 bytes of memory.
+	 *
+	 * @param x
+	 *
+	 * @return the number of primes less than or equal to x
+	 */
+	static long primePi(long x) {
+		if(x < 3) {
+			return (x < 2) ? 0 : 1;
+		}
+
+		long root = SieveSegment.isqrt(x);
+		long y = (long) Math.pow(x / Math.log(x), 2.0 / 3);
+
+		y = Math.min(Math.max(y, root + 1), 1L << 32);
+
+		// large[i] = S(x / i) for every i such that x / i > y, already sieved by 2
+		int count = (int) (x / (y + 1));
+		long[] large = new long[count + 1];
+
+		for(int i = 1; i <= count; i++) {
+			large[i] = (x / i + 1) >>> 1;
+		}
+
+		// Bit k stands for 2k + 1 and is set while that number is still counted
+		long bits = (y + 1) >>> 1;
+		int length = (int) ((bits + 63) >>> 6);
+		long[] words = new long[length];
+		int[] tree = new int[length + 1];
+
+		Arrays.fill(words, -1L);
+
+		if((bits & 63) != 0) {
+			words[length - 1] = (1L << bits) - 1;
+		}
+
+		words[0] &= ~1L;
+
+		for(int w = 1; w <= length; w++) {
+			tree[w] += Long.bitCount(words[w - 1]);
+
+			int parent = w + (w & -w);
+
+			if(parent <= length) {
+				tree[parent] += tree[w];
+			}
+		}
+
+		// pi(p - 1), 2 included
+		long primesBelow = 1;
+
+		for(long p = 3; p <= root; p += 2) {
+			long bit = p >>> 1;
+
+			if((words[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+				continue;
+			}
+
+			int lim = (int) Math.min(count, x / (p * p));
+
+			for(int i = 1; i <= lim; i++) {
+				long d = i * p;
+				long s = (d <= count) ? large[(int) d] : 1 + prefixCount(words, tree, (x / d - 1) >>> 1);
+
+				large[i] -= s - primesBelow;
+			}
+
+			for(long m = p * p; m <= y; m += 2 * p) {
+				long k = m >>> 1;
+				int w = (int) (k >>> 6);
+				long mask = 1L << k;
+
+				if((words[w] & mask) != 0) {
+					words[w] &= ~mask;
+
+					for(int j = w + 1; j <= length; j += j & -j) {
+						tree[j]--;
+					}
+				}
+			}
+
+			primesBelow++;
+		}
+
+		return large[1];
+	}
+
+	/**
+	 * @param words
+	 * @param tree Fenwick tree over the bit count of each word
+	 * @param k
+	 *
+	 * @return the number of set bits in [0, k]
+	 */
+	private static long prefixCount(long[] words, int[] tree, long k) {
+		int w = (int) (k >>> 6);
+		long count = Long.bitCount(words[w] & (-1L >>> (63 - (k & 63))));
+
+		for(int j = w; j > 0; j -= j & -j) {
+			count += tree[j];
+		}
+
+		return count;
+	}
+
+	/**
+	 * The k-th prime (nthPrime(1) = 2).<br /><br />
+	 *
+	 * Cipolla's asymptotic expansion gives an estimate x of the answer, {@link #primePi(long)} tells how many
+	 * primes are below it, and a short {@link PrimeGenerating#rangeSieve(long, long)} or {@link PrimeSource}
+	 * walk covers the gap between pi(x) and k.
+	 *
+	 * <pre>{@code
+	 * p_k ≈ k * (ln k + ln ln k - 1 + (ln ln k - 2) / ln k)
+	 * }</pre>
+	 *
+	 * @param k
+	 *
+	 * @return the k-th prime
+	 */
+	static long nthPrime(long k) {
+		if (k < 1)
+			throw new IllegalArgumentException("k must be positive");
+
+		if(k < 100) {
+			PrimeSource source = new PrimeSource();
+
+			for(long i = 1; i < k; i++) {
+				source.nextLong();
+			}
+
+			return source.nextLong();
+		}
+
+		double log = Math.log(k);
+		double logLog = Math.log(log);
+		long estimate = (long) (k * (log + logLog - 1 + (logLog - 2) / log));
+		long count = primePi(estimate);
+
+		if(count < k) {
+			PrimeSource source = new PrimeSource(estimate + 1);
+			long prime = 0;
+
+			for(; count < k; count++) {
+				prime = source.nextLong();
+			}
+
+			return prime;
+		}
+
+		// The answer is the (count - k + 1)-th prime counting down from the estimate
+		long remaining = count - k + 1;
+		long window = Math.max(1024, (long) (remaining * Math.log(estimate) * 2));
+		long hi = estimate;
+
+		while(true) {
+			long lo = Math.max(2, hi - window + 1);
+			long[] primes = PrimeGenerating.rangeSieve(lo, hi);
+
+			if(primes.length >= remaining) {
+				return primes[(int) (primes.length - remaining)];
+			}
+
+			remaining -= primes.length;
+			hi = lo - 1;
+		}
+	}
+
+	/**
+	 * Driver main method use to compare the different algorithm proposed above
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		long n = (long) Math.pow(10, 8);
+
+		long start = System.currentTimeMillis();
+		System.out.println("pi(10^8) => " + PrimeGenerating.parallelPrimeCount(n + 1, ForkJoinPool.commonPool()));
+		System.out.println("Parallel Segmented Sieve took " + (System.currentTimeMillis() - start) + "ms\n");
+
+		start = System.currentTimeMillis();
+		System.out.println("pi(10^8) => " + primePi(n));
+		System.out.println("Lucy Hedgehog took " + (System.currentTimeMillis() - start) + "ms\n");
+
+		start = System.currentTimeMillis();
+		System.out.println("pi(10^12) => " + primePi(n * 10000));
+		System.out.println("Lucy Hedgehog took " + (System.currentTimeMillis() - start) + "ms\n");
+
+		start = System.currentTimeMillis();
+		System.out.println("p(10^9) => " + nthPrime(n * 10));
+		System.out.println("Nth Prime took " + (System.currentTimeMillis() - start) + "ms");
+	}
+}
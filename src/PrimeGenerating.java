@@ -1,4 +1,6 @@
 import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveTask;
 
 /**
  * https://en.wikipedia.org/wiki/Sieve_of_Eratosthenes
@@ -34,6 +36,34 @@ public class PrimeGenerating {
 	    return isPrime;
 	}
 	
+	/**
+	 * Sieve Of Eratosthenes over a bitset of odd numbers only, see {@link PrimeBitSet}.
+	 * 
+	 * Uses n / 16 bytes instead of the n bytes of {@link #primeSieve(int)} and does not materialize
+	 * an {@code int[]} of the primes, query it through {@link PrimeBitSet#isPrime(int)} instead.
+	 * 
+	 * @param n the limit
+	 * 
+	 * @return the primes below n
+	 */
+	static PrimeBitSet bitSieve(int n) {
+		return new PrimeBitSet(n);
+	}
+	
+	/**
+	 * Sieve Of Eratosthenes on a mod 210 wheel, see {@link WheelSieve}.
+	 * 
+	 * Multiples of 2, 3, 5 and 7 are not stored at all, those of 11 and 13 are stamped from a precomputed
+	 * pattern, and only the primes from 17 up are crossed off.
+	 * 
+	 * @param n the limit
+	 * 
+	 * @return the primes below n
+	 */
+	static WheelSieve wheelSieve(int n) {
+		return new WheelSieve(n);
+	}
+	
 	/**
 	 * Sieve Of Eratosthenes Algorithm
 	 * 
@@ -174,6 +204,213 @@ public class PrimeGenerating {
         return segmentedSieve;
 	}
 	
+	/**
+	 * Parallel version of {@link #segmentedSieve(int)} running on the common {@link ForkJoinPool}.
+	 * 
+	 * @param n the limit
+	 * 
+	 * @return prime number below n, without trailing zeros
+	 */
+	static long[] parallelSegmentedSieve(long n) {
+		return parallelSegmentedSieve(n, ForkJoinPool.commonPool());
+	}
+	
+	/**
+	 * Parallel segmented sieve
+	 * 
+	 * 		1/ Sieve the odd primes up to √(n) once, they are shared read-only by every worker.
+	 * 		2/ Split [0..n-1] in cache sized segments (see {@link SieveSegment}) instead of √(n) sized ones.
+	 * 		3/ Fork the segments over the pool. Each worker thread sieves into its own {@link SieveSegment}
+	 * 		   which is reused for every segment it processes, and stores the primes of segment i in slot i.
+	 * 		4/ Concatenate the per-segment lists in segment order.
+	 * 
+	 * @param n the limit
+	 * @param pool
+	 * 
+	 * @return prime number below n, without trailing zeros
+	 */
+	static long[] parallelSegmentedSieve(long n, ForkJoinPool pool) {
+		if(n <= 2) {
+			return new long[0];
+		}
+		
+		int[] basePrimes = SieveSegment.basePrimes(SieveSegment.isqrt(n - 1));
+		long[][] segments = new long[segmentCount(n)][];
+		long total = pool.invoke(new SegmentTask(n, basePrimes, 0, segments.length, segments)) + 1;
+		
+		if (total > Integer.MAX_VALUE - 8)
+			throw new IllegalArgumentException("Too many primes below " + n + " for an array: " + total);
+		
+		long[] primes = new long[(int) total];
+		int index = 0;
+		
+		primes[index++] = 2;
+		
+		for (long[] segment : segments) {
+			System.arraycopy(segment, 0, primes, index, segment.length);
+			index += segment.length;
+		}
+		
+		return primes;
+	}
+	
+	/**
+	 * Count the primes below n with the parallel segmented sieve, without storing them
+	 * 
+	 * @param n the limit
+	 * @param pool
+	 * 
+	 * @return the number of primes below n
+	 */
+	static long parallelPrimeCount(long n, ForkJoinPool pool) {
+		if(n <= 2) {
+			return 0;
+		}
+		
+		int[] basePrimes = SieveSegment.basePrimes(SieveSegment.isqrt(n - 1));
+		
+		return pool.invoke(new SegmentTask(n, basePrimes, 0, segmentCount(n), null)) + 1;
+	}
+	
+	private static int segmentCount(long n) {
+		long span = 2L * SieveSegment.DEFAULT_BITS;
+		
+		return (int) ((n + span - 1) / span);
+	}
+	
+	/**
+	 * Sieves the segments [from, to) and returns the number of odd primes found in them
+	 */
+	private static final class SegmentTask extends RecursiveTask<Long> {
+		
+		private static final long serialVersionUID = 1L;
+		
+		/**
+		 * Segments handled by a single task before it stops forking
+		 */
+		private static final int THRESHOLD = 4;
+		
+		private static final ThreadLocal<SieveSegment> BUFFER = new ThreadLocal<SieveSegment>() {
+			@Override
+			protected SieveSegment initialValue() {
+				return new SieveSegment();
+			}
+		};
+		
+		private final long n;
+		private final int[] basePrimes;
+		private final int from;
+		private final int to;
+		private final long[][] segments;
+		
+		SegmentTask(long n, int[] basePrimes, int from, int to, long[][] segments) {
+			this.n = n;
+			this.basePrimes = basePrimes;
+			this.from = from;
+			this.to = to;
+			this.segments = segments;
+		}
+		
+		@Override
+		protected Long compute() {
+			if(to - from > THRESHOLD) {
+				int middle = (from + to) >>> 1;
+				SegmentTask left = new SegmentTask(n, basePrimes, from, middle, segments);
+				SegmentTask right = new SegmentTask(n, basePrimes, middle, to, segments);
+				
+				left.fork();
+				
+				long count = right.compute();
+				
+				return left.join() + count;
+			}
+			
+			SieveSegment segment = BUFFER.get();
+			long span = segment.span();
+			long count = 0;
+			
+			for(int i = from; i < to; i++) {
+				long low = i * span;
+				
+				segment.sieve(low, Math.min(low + span, n), basePrimes);
+				
+				int primes = segment.count();
+				
+				if(segments != null) {
+					segments[i] = new long[primes];
+					segment.collect(segments[i], 0);
+				}
+				
+				count += primes;
+			}
+			
+			return count;
+		}
+	}
+	
+	/**
+	 * Range sieve: primes in [lo, hi] for any 0 <= lo <= hi < 2^63.
+	 * 
+	 * 		1/ Sieve the odd primes up to √(hi) only.
+	 * 		2/ Walk [lo, hi] with a cache sized {@link SieveSegment}, crossing off the multiples of the base primes.
+	 * 
+	 * Nothing below lo is ever sieved, so the cost is O((hi - lo) log log hi + √(hi)) instead of O(hi).
+	 * 
+	 * @param lo inclusive
+	 * @param hi inclusive
+	 * 
+	 * @return the primes in [lo, hi] in increasing order
+	 */
+	static long[] rangeSieve(long lo, long hi) {
+		if (lo < 0 || hi < lo)
+			throw new IllegalArgumentException("Invalid range [" + lo + ", " + hi + "]");
+		
+		// Exclusive bound, Long.MAX_VALUE itself is composite
+		long end = (hi == Long.MAX_VALUE) ? hi : hi + 1;
+		long start = lo & ~1L;
+		int[] basePrimes = SieveSegment.basePrimes(SieveSegment.isqrt(hi));
+		// Every base prime costs a division per segment, so segments grow with √(hi) up to 1MB of words
+		long capacity = Math.max(SieveSegment.DEFAULT_BITS, Math.min(SieveSegment.isqrt(hi) >>> 2, 1 << 23));
+		SieveSegment segment = new SieveSegment((int) Math.min(capacity, ((end - start) >>> 1) + 1));
+		long[] primes = new long[16];
+		int index = 0;
+		
+		if(lo <= 2 && 2 <= hi) {
+			primes[index++] = 2;
+		}
+		
+		for(long low = start; low < end; ) {
+			long high = (end - low < segment.span()) ? end : low + segment.span();
+			
+			segment.sieve(low, high, basePrimes);
+			
+			int count = segment.count();
+			
+			if(index + count > primes.length) {
+				long length = Math.max((long) primes.length << 1, (long) index + count);
+				
+				if (length > Integer.MAX_VALUE - 8)
+					throw new IllegalArgumentException("Too many primes in [" + lo + ", " + hi + "] for an array");
+				
+				primes = Arrays.copyOf(primes, (int) length);
+			}
+			
+			int first = index;
+			
+			index = segment.collect(primes, index);
+			
+			// Only the first segment may start one below lo
+			if(low < lo && first < index && primes[first] < lo) {
+				System.arraycopy(primes, first + 1, primes, first, index - first - 1);
+				index--;
+			}
+			
+			low = high;
+		}
+		
+		return Arrays.copyOf(primes, index);
+	}
+	
 	/**
 	 * Sieve Of Sundaram: algorithm steps for primes below 2n + 2.
 	 * 
@@ -361,6 +598,14 @@ public class PrimeGenerating {
 		primeSieve(twoNPlus2);
 		System.out.println("Prime Sieve took " + (System.currentTimeMillis() - start) + "ms");
 		
+		start = System.currentTimeMillis();		
+		bitSieve(twoNPlus2);
+		System.out.println("Bit Sieve took " + (System.currentTimeMillis() - start) + "ms");
+		
+		start = System.currentTimeMillis();		
+		wheelSieve(twoNPlus2);
+		System.out.println("Wheel Sieve took " + (System.currentTimeMillis() - start) + "ms");
+		
 		start = System.currentTimeMillis();		
 		sieveOfEratosthenes(twoNPlus2);
 		System.out.println("Sieve Of Eratosthenes took " + (System.currentTimeMillis() - start) + "ms");
@@ -376,5 +621,17 @@ public class PrimeGenerating {
 		start = System.currentTimeMillis();		
 		segmentedSieve(twoNPlus2);
 		System.out.println("Segmented Sieve took " + (System.currentTimeMillis() - start) + "ms");
+		
+		start = System.currentTimeMillis();		
+		parallelSegmentedSieve(twoNPlus2);
+		System.out.println("Parallel Segmented Sieve took " + (System.currentTimeMillis() - start) + "ms");
+		
+		start = System.currentTimeMillis();		
+		PrimeSource.stream().limit(n / 10).count();
+		System.out.println("Prime Source took " + (System.currentTimeMillis() - start) + "ms");
+		
+		start = System.currentTimeMillis();		
+		rangeSieve((long) Math.pow(10, 15), (long) Math.pow(10, 15) + n);
+		System.out.println("Range Sieve took " + (System.currentTimeMillis() - start) + "ms");
 	}
 }
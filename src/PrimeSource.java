@@ -0,0 +1,123 @@
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.stream.LongStream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Lazy, unbounded source of primes.<br /><br />
+ *
+ * Primes are produced by a segmented sieve (see {@link SieveSegment}) one segment at a time, only when the
+ * previous one has been consumed. Nothing depends on an upper bound chosen in advance: the base primes are
+ * extended whenever the next segment goes past the square of the largest one. Memory is one segment buffer plus
+ * the base primes up to √(current position), whatever the number of primes already returned.
+ *
+ * <pre>{@code
+ * PrimeSource.stream(1_000_000_000L).limit(10).forEach(System.out::println);
+ * }</pre>
+ *
+ * @author Stéphan R.
+ *
+ */
+public class PrimeSource implements PrimitiveIterator.OfLong {
+
+	private final SieveSegment segment = new SieveSegment();
+	private final long[] buffer = new long[SieveSegment.DEFAULT_BITS];
+	private final long from;
+
+	private int[] basePrimes = new int[0];
+	private long baseLimit = 0;
+	private long low;
+	private int index = 0;
+	private int size = 0;
+	private boolean exhausted = false;
+
+	/**
+	 * Every prime, starting at 2
+	 */
+	PrimeSource() {
+		this(0);
+	}
+
+	/**
+	 * @param from the primes returned are greater than or equal to from
+	 */
+	PrimeSource(long from) {
+		if (from < 0)
+			throw new IllegalArgumentException("Negative number");
+
+		this.from = from;
+		this.low = from & ~1L;
+
+		if(from <= 2) {
+			buffer[size++] = 2;
+		}
+	}
+
+	/**
+	 * @return a sequential stream of every prime
+	 */
+	static LongStream stream() {
+		return stream(0);
+	}
+
+	/**
+	 * @param from
+	 * @return a sequential stream of the primes greater than or equal to from
+	 */
+	static LongStream stream(long from) {
+		Spliterator.OfLong spliterator = Spliterators.spliteratorUnknownSize(new PrimeSource(from),
+				Spliterator.ORDERED | Spliterator.DISTINCT | Spliterator.SORTED | Spliterator.NONNULL | Spliterator.IMMUTABLE);
+
+		return StreamSupport.longStream(spliterator, false);
+	}
+
+	@Override
+	public boolean hasNext() {
+		while(index == size) {
+			if(exhausted) {
+				return false;
+			}
+
+			advance();
+		}
+
+		return true;
+	}
+
+	@Override
+	public long nextLong() {
+		if(!hasNext()) {
+			throw new NoSuchElementException();
+		}
+
+		return buffer[index++];
+	}
+
+	/**
+	 * Sieve the next segment into the buffer
+	 */
+	private void advance() {
+		long high = (Long.MAX_VALUE - low < segment.span()) ? Long.MAX_VALUE : low + segment.span();
+		long root = SieveSegment.isqrt(high - 1);
+
+		if(root > baseLimit) {
+			baseLimit = Math.max(root, Math.min(baseLimit << 1, 0xFFFFFFFFL));
+			basePrimes = SieveSegment.basePrimes(baseLimit);
+		}
+
+		segment.sieve(low, high, basePrimes);
+
+		size = segment.collect(buffer, 0);
+		index = 0;
+
+		// Only the first segment can start below from
+		while(index < size && buffer[index] < from) {
+			index++;
+		}
+
+		exhausted = (high == Long.MAX_VALUE);
+		low = high;
+	}
+}
@@ -0,0 +1,20 @@
+
+/**
+ * Read-only view of the primes below a fixed limit, whatever the storage behind it.
+ * 
+ * @author Stéphan R.
+ *
+ */
+public interface PrimeTable {
+
+	/**
+	 * @param n a number in [0, limit)
+	 * @return true if n is prime
+	 */
+	boolean isPrime(int n);
+	
+	/**
+	 * @return the exclusive upper bound of the table
+	 */
+	int limit();
+}
@@ -0,0 +1,959 @@
+import java.math.BigInteger;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * https://en.wikipedia.org/wiki/Quadratic_sieve
+ * https://www.cs.virginia.edu/crab/QFS_Simple.pdf
+ * https://citeseerx.ist.psu.edu/document?doi=1fbc93b8a8aa55f5a2e3f2bf2d3a9e1c0aca2d1f (Contini, Factoring integers with the self-initializing quadratic sieve)
+ *
+ * Self-initializing quadratic sieve (SIQS) for BigInteger.<br /><br />
+ *
+ * Looks for many x such that (Ax + B)^2 - kN = A g(x) only has small prime factors: any subset of those
+ * relations whose product is a square gives X^2 ≡ Y^2 (mod N), and gcd(X - Y, N) is a factor half of the time.
+ *
+ * <pre>{@code
+ * Pick the multiplier k (Knuth-Schroeppel) and the factor base: primes p with kN a square mod p
+ *
+ * On every worker of the pool, until there are more relations than primes in the factor base
+ * 	Pick A = q1 q2 ... qs, a product of factor base primes close to √(2kN) / M
+ * 	Derive the 2^(s-1) values of B with B^2 ≡ kN (mod A), switching from one to the next in Gray code
+ * 	order so that the roots of g mod p are updated with one addition per prime
+ * 	For each polynomial
+ * 		Add round(log2 p) at every x in [-M, M) where p divides g(x), one cache sized block at a time
+ * 		Trial divide the x whose sum is above the threshold
+ * 		Keep g(x) when it factors completely (full relation) or up to one large prime (partial relation),
+ * 		two partials with the same large prime are merged into one full relation
+ *
+ * Gaussian elimination over GF(2) on the exponent vectors, packed 64 per long
+ * Each dependency gives X and Y, try gcd(X - Y, N)
+ * }</pre>
+ *
+ * Primes come from the {@link SharedPrimeTable}.
+ *
+ * @author Stéphan R.
+ *
+ */
+public class QuadraticSieve {
+
+	/**
+	 * Digits of N, size of the factor base and half length M of the sieve interval
+	 */
+	private static final int[][] PARAMETERS = {
+		{ 20, 120, 32_768 },
+		{ 30, 200, 32_768 },
+		{ 35, 350, 32_768 },
+		{ 40, 450, 65_536 },
+		{ 45, 700, 65_536 },
+		{ 50, 1_200, 65_536 },
+		{ 55, 1_800, 65_536 },
+		{ 60, 2_600, 98_304 },
+		{ 65, 3_500, 98_304 },
+		{ 70, 5_000, 131_072 },
+		{ 75, 6_500, 163_840 },
+		{ 80, 8_500, 196_608 },
+		{ 85, 11_000, 229_376 },
+		{ 90, 14_000, 262_144 }
+	};
+
+	/**
+	 * Candidate multipliers, squarefree
+	 */
+	private static final int[] MULTIPLIERS = { 1, 2, 3, 5, 6, 7, 10, 11, 13, 14, 15, 17, 19, 21, 22, 23, 26, 29, 30, 31, 33, 34, 35, 37, 38, 39, 41, 42, 43, 46, 47 };
+
+	/**
+	 * 32KB, the size of an L1 data cache
+	 */
+	private static final int BLOCK = 1 << 15;
+
+	/**
+	 * Primes below this bound are not sieved, they hit too often for what they add to the logarithms
+	 */
+	private static final int SMALL_PRIME = 30;
+
+	/**
+	 * Partial relations keep a large prime up to this multiple of the largest prime of the factor base
+	 */
+	private static final int LARGE_MULTIPLIER = 64;
+
+	/**
+	 * Relations collected beyond the size of the factor base, each one adds a dependency
+	 */
+	private static final int EXTRA_RELATIONS = 64;
+
+	/**
+	 * Preferred size of the primes of A
+	 */
+	private static final double A_PRIME = 2000;
+
+	/**
+	 * The last prime of A is drawn among this many neighbours on each side of the best one
+	 */
+	private static final int LAST_SPREAD = 3;
+
+	/**
+	 * Values of A drawn again in a row before a worker gives up
+	 */
+	private static final int MAX_REPEATED_A = 1 << 12;
+
+	/**
+	 * @param n composite, not a perfect power
+	 * @return a non trivial factor of n, running on the common {@link ForkJoinPool}
+	 */
+	static BigInteger findFactor(BigInteger n) {
+		return findFactor(n, ForkJoinPool.commonPool());
+	}
+
+	/**
+	 * @param n composite
+	 * @param pool the sieving runs on every thread of pool
+	 *
+	 * @return a non trivial factor of n
+	 */
+	static BigInteger findFactor(BigInteger n, ForkJoinPool pool) {
+		if (n.signum() <= 0 || n.isProbablePrime(EllipticCurveMethod.PRIME_CERTAINTY))
+			throw new IllegalArgumentException("Not a positive composite number: " + n);
+
+		if(!n.testBit(0)) {
+			return BigInteger.valueOf(2);
+		}
+
+		BigInteger root = perfectPower(n);
+
+		if(root != null) {
+			return root;
+		}
+
+		return new QuadraticSieve(n).run(pool);
+	}
+
+	/**
+	 * @param n
+	 * @return r such that n = r^k for some k >= 2, or null if n is not a perfect power
+	 */
+	static BigInteger perfectPower(BigInteger n) {
+		for(int k = 2; k < n.bitLength(); k++) {
+			BigInteger r = root(n, k);
+
+			if(r.pow(k).equals(n)) {
+				return r;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * Newton iteration from above
+	 *
+	 * @param n positive
+	 * @param k
+	 * @return floor(n^(1/k))
+	 */
+	static BigInteger root(BigInteger n, int k) {
+		BigInteger x = BigInteger.ONE.shiftLeft(n.bitLength() / k + 1);
+		BigInteger K = BigInteger.valueOf(k);
+		BigInteger K1 = BigInteger.valueOf(k - 1);
+
+		while(true) {
+			BigInteger y = K1.multiply(x).add(n.divide(x.pow(k - 1))).divide(K);
+
+			if(y.compareTo(x) >= 0) {
+				return x;
+			}
+
+			x = y;
+		}
+	}
+
+	private final BigInteger n;
+	private final BigInteger kn;
+	private final int multiplier;
+
+	/**
+	 * Factor base: primes[0] is 2, log2 of each prime and √(kN) mod p
+	 */
+	private int[] primes;
+	private byte[] logs;
+	private int[] roots;
+
+	private final int half;
+	private final int threshold;
+	private final long largeBound;
+
+	/**
+	 * Index of the first prime that A may use
+	 */
+	private int firstA;
+
+	/**
+	 * Relations found by every worker, guarded by this
+	 */
+	private final List<Relation> relations = new ArrayList<Relation>();
+	private final Map<Long, Relation> partials = new HashMap<Long, Relation>();
+	private final Set<BigInteger> usedA = Collections.newSetFromMap(new ConcurrentHashMap<BigInteger, Boolean>());
+	private volatile int target;
+
+	/**
+	 * A factor found while building the factor base
+	 */
+	private BigInteger found;
+
+	private QuadraticSieve(BigInteger n) {
+		this.n = n;
+
+		int digits = n.toString().length();
+		int[] parameters = PARAMETERS[0];
+
+		for(int[] row : PARAMETERS) {
+			if(digits >= row[0]) {
+				parameters = row;
+			}
+		}
+
+		this.multiplier = multiplier(n);
+		this.kn = n.multiply(BigInteger.valueOf(multiplier));
+		this.half = parameters[2];
+
+		factorBase(parameters[1]);
+
+		long largest = primes[primes.length - 1];
+
+		this.largeBound = Math.min(largest * LARGE_MULTIPLIER, largest * largest);
+
+		// log2 of the largest |g(x)|, about M √(kN / 2), less what the unsieved small primes and the large prime may miss
+		double max = Math.log(half) / Math.log(2) + (kn.bitLength() - 1) / 2.0;
+
+		this.threshold = (int) Math.round(max - Math.log(largeBound) / Math.log(2) - 3);
+		this.target = primes.length + 1 + EXTRA_RELATIONS;
+	}
+
+	/**
+	 * Knuth-Schroeppel: maximize the expected contribution of the small primes to the logarithm of g(x)
+	 */
+	private static int multiplier(BigInteger n) {
+		PrimeBitSet table = SharedPrimeTable.shared().snapshot(1000);
+		int best = 1;
+		double score = Double.NEGATIVE_INFINITY;
+
+		for(int k : MULTIPLIERS) {
+			BigInteger kn = n.multiply(BigInteger.valueOf(k));
+			double f = -0.5 * Math.log(k);
+			int mod8 = kn.intValue() & 7;
+
+			f += Math.log(2) * ((mod8 == 1) ? 2 : (mod8 == 5) ? 1 : 0.5);
+
+			for(int p = 3; p > 0 && p < 1000; p = table.nextPrime(p + 1)) {
+				int r = kn.mod(BigInteger.valueOf(p)).intValue();
+
+				if(r == 0) {
+					f += Math.log(p) / p;
+				} else if(legendre(r, p) == 1) {
+					f += 2 * Math.log(p) / (p - 1);
+				}
+			}
+
+			if(f > score) {
+				score = f;
+				best = k;
+			}
+		}
+
+		return best;
+	}
+
+	/**
+	 * 2 and the odd primes for which kN is a square, stopping after size primes
+	 */
+	private void factorBase(int size) {
+		int[] p = new int[size];
+		int[] r = new int[size];
+		byte[] l = new byte[size];
+		int count = 0;
+
+		p[count] = 2;
+		r[count] = kn.testBit(0) ? 1 : 0;
+		l[count++] = 1;
+
+		for(int q = 3; count < size; q = SharedPrimeTable.shared().nextPrime(q + 1)) {
+			int residue = kn.mod(BigInteger.valueOf(q)).intValue();
+
+			if(residue == 0 && n.mod(BigInteger.valueOf(q)).signum() == 0) {
+				found = BigInteger.valueOf(q);
+			}
+
+			if(residue == 0 || legendre(residue, q) == 1) {
+				p[count] = q;
+				r[count] = (residue == 0) ? 0 : sqrtMod(residue, q);
+				l[count++] = (byte) Math.round(Math.log(q) / Math.log(2));
+			}
+		}
+
+		primes = p;
+		roots = r;
+		logs = l;
+		firstA = 1;
+
+		while(firstA < size - 1 && primes[firstA] < SMALL_PRIME) {
+			firstA++;
+		}
+	}
+
+	/**
+	 * Sieve on every thread until there are enough relations, then look for a dependency giving a factor
+	 */
+	private BigInteger run(ForkJoinPool pool) {
+		if(found != null) {
+			return found;
+		}
+
+		final AtomicInteger seed = new AtomicInteger();
+
+		while(true) {
+			List<Future<?>> workers = new ArrayList<Future<?>>();
+
+			for(int w = pool.getParallelism(); w > 0; w--) {
+				workers.add(pool.submit(new Runnable() {
+					@Override
+					public void run() {
+						new Worker(seed.incrementAndGet()).run();
+					}
+				}));
+			}
+
+			try {
+				for(Future<?> worker : workers) {
+					worker.get();
+				}
+			} catch (InterruptedException e) {
+				Thread.currentThread().interrupt();
+				throw new IllegalStateException("Interrupted while sieving " + n, e);
+			} catch (ExecutionException e) {
+				throw new IllegalStateException("SIQS worker failed", e.getCause());
+			}
+
+			BigInteger factor = solve();
+
+			if(factor != null) {
+				return factor;
+			}
+
+			target += EXTRA_RELATIONS;
+		}
+	}
+
+	/**
+	 * Y^2 ≡ (-1)^e0 * prod primes[j - 1]^ej * square^2 (mod N)
+	 */
+	private static final class Relation {
+
+		final BigInteger y;
+
+		/**
+		 * Indices in the exponent vector, 0 is the sign and j > 0 is primes[j - 1], repeated by multiplicity
+		 */
+		final int[] factors;
+
+		final BigInteger square;
+
+		Relation(BigInteger y, int[] factors, BigInteger square) {
+			this.y = y;
+			this.factors = factors;
+			this.square = square;
+		}
+	}
+
+	/**
+	 * @return true once enough relations were collected
+	 */
+	private synchronized boolean store(BigInteger y, int[] factors, long large) {
+		if(large == 1) {
+			relations.add(new Relation(y, factors, BigInteger.ONE));
+		} else {
+			Relation other = partials.get(large);
+
+			if(other == null) {
+				partials.put(large, new Relation(y, factors, BigInteger.ONE));
+			} else if(!other.y.equals(y)) {
+				int[] merged = Arrays.copyOf(other.factors, other.factors.length + factors.length);
+
+				System.arraycopy(factors, 0, merged, other.factors.length, factors.length);
+				relations.add(new Relation(other.y.multiply(y).mod(n), merged, BigInteger.valueOf(large)));
+			}
+		}
+
+		return relations.size() >= target;
+	}
+
+	private synchronized boolean enough() {
+		return relations.size() >= target;
+	}
+
+	/**
+	 * Sieves polynomials until {@link #enough()}, with its own buffers
+	 */
+	private final class Worker {
+
+		private final Random rand;
+		private final int size = primes.length;
+		private final byte[] sieve = new byte[2 * half];
+
+		/**
+		 * Next position to sieve for each root, and the positions of the current polynomial
+		 */
+		private final int[] next1 = new int[size];
+		private final int[] next2 = new int[size];
+		private final int[] start1 = new int[size];
+		private final int[] start2 = new int[size];
+
+		/**
+		 * Inverse of A mod p, 0 when p divides A or kN
+		 */
+		private final int[] inverse = new int[size];
+
+		private final int[] factors = new int[64 + size];
+
+		private BigInteger a;
+		private int[] q;
+
+		Worker(int seed) {
+			this.rand = new Random(seed);
+		}
+
+		void run() {
+			int repeated = 0;
+
+			while(!enough()) {
+				if(!chooseA()) {
+					if (++repeated > MAX_REPEATED_A)
+						throw new IllegalStateException("No new polynomial left for " + n);
+
+					continue;
+				}
+
+				repeated = 0;
+
+				int s = q.length;
+				BigInteger[] terms = new BigInteger[s];
+				int[][] steps = new int[s][];
+				BigInteger b = BigInteger.ZERO;
+
+				for(int l = 0; l < s; l++) {
+					int p = primes[q[l]];
+					BigInteger quotient = a.divide(BigInteger.valueOf(p));
+					long gamma = (long) roots[q[l]] * modInverse(quotient.mod(BigInteger.valueOf(p)).intValue(), p) % p;
+
+					if(gamma > p / 2) {
+						gamma = p - gamma;
+					}
+
+					terms[l] = quotient.multiply(BigInteger.valueOf(gamma));
+					b = b.add(terms[l]);
+				}
+
+				for(int j = 0; j < size; j++) {
+					int p = primes[j];
+					int am = a.mod(BigInteger.valueOf(p)).intValue();
+
+					// Primes dividing A or kN have a single root, they are trial divided instead of sieved
+					inverse[j] = (am == 0 || roots[j] == 0) ? 0 : modInverse(am, p);
+				}
+
+				for(int l = 0; l < s; l++) {
+					steps[l] = new int[size];
+
+					for(int j = 1; j < size; j++) {
+						int p = primes[j];
+
+						steps[l][j] = (int) (terms[l].shiftLeft(1).mod(BigInteger.valueOf(p)).longValue() * inverse[j] % p);
+					}
+				}
+
+				initialRoots(b);
+
+				for(int i = 0; ; i++) {
+					if(sieveAndCollect(b)) {
+						return;
+					}
+
+					if(i + 1 == 1 << (s - 1)) {
+						break;
+					}
+
+					// Gray code: flip the sign of the term v, the last term is never flipped
+					int v = Integer.numberOfTrailingZeros(i + 1);
+					boolean negative = (((i + 1) ^ ((i + 1) >>> 1)) & (1 << v)) != 0;
+
+					b = negative ? b.subtract(terms[v].shiftLeft(1)) : b.add(terms[v].shiftLeft(1));
+
+					for(int j = 1; j < size; j++) {
+						if(inverse[j] == 0) {
+							continue;
+						}
+
+						int p = primes[j];
+						int step = negative ? steps[v][j] : p - steps[v][j];
+
+						start1[j] = add(start1[j], step, p);
+						start2[j] = add(start2[j], step, p);
+					}
+				}
+			}
+		}
+
+		private int add(int a, int b, int p) {
+			int sum = a + b;
+
+			return (sum >= p) ? sum - p : sum;
+		}
+
+		/**
+		 * Positions of the roots of g mod p in the sieve array, x = position - M
+		 */
+		private void initialRoots(BigInteger b) {
+			for(int j = 1; j < size; j++) {
+				if(inverse[j] == 0) {
+					continue;
+				}
+
+				int p = primes[j];
+				long bm = b.mod(BigInteger.valueOf(p)).longValue();
+				long shift = half % p;
+
+				start1[j] = (int) ((inverse[j] * ((roots[j] - bm + p) % p) + shift) % p);
+				start2[j] = (int) ((inverse[j] * ((2L * p - roots[j] - bm) % p) + shift) % p);
+			}
+		}
+
+		/**
+		 * Pick s - 1 random primes around the ideal size, then the last one close to the prime that gets A
+		 * nearest to its target value. With s = 1 there would be a single A, so s is at least 2, and the last prime
+		 * is drawn among its {@link #LAST_SPREAD} neighbours so that small N still have many values of A.
+		 *
+		 * @return false if that A was already used
+		 */
+		private boolean chooseA() {
+			double target = (Math.log(2) + kn.bitLength() * Math.log(2)) / 2 - Math.log(half);
+			int s = (int) Math.max(2, Math.round(target / Math.log(A_PRIME)));
+			double ideal = Math.exp(target / s);
+			int center = firstA;
+
+			while(center < size - 1 && primes[center] < ideal) {
+				center++;
+			}
+
+			int window = Math.max(2 * s, 16);
+			int low = Math.max(firstA, center - window);
+			int high = Math.min(size - 1, center + window);
+
+			if(high - low < s) {
+				low = firstA;
+				high = size - 1;
+			}
+
+			q = new int[s];
+
+			double remaining = target;
+			BigInteger product = BigInteger.ONE;
+
+			for(int l = 0; l < s - 1; l++) {
+				int j;
+
+				do {
+					j = low + rand.nextInt(high - low + 1);
+				} while(contains(q, l, j) || roots[j] == 0);
+
+				q[l] = j;
+				product = product.multiply(BigInteger.valueOf(primes[j]));
+				remaining -= Math.log(primes[j]);
+			}
+
+			double wanted = Math.exp(remaining);
+			int last = -1;
+
+			for(int j = firstA; j < size; j++) {
+				if(roots[j] != 0 && !contains(q, s - 1, j) && (last < 0 || Math.abs(Math.log(primes[j] / wanted)) < Math.abs(Math.log(primes[last] / wanted)))) {
+					last = j;
+				}
+			}
+
+			int neighbour = last - LAST_SPREAD + rand.nextInt(2 * LAST_SPREAD + 1);
+
+			if(neighbour >= firstA && neighbour < size && roots[neighbour] != 0 && !contains(q, s - 1, neighbour)) {
+				last = neighbour;
+			}
+
+			q[s - 1] = last;
+			a = product.multiply(BigInteger.valueOf(primes[last]));
+
+			return usedA.add(a);
+		}
+
+		private boolean contains(int[] array, int length, int value) {
+			for(int i = 0; i < length; i++) {
+				if(array[i] == value) {
+					return true;
+				}
+			}
+
+			return false;
+		}
+
+		/**
+		 * Sieve [-M, M) block by block and trial divide the candidates of each block
+		 *
+		 * @return true once enough relations were collected
+		 */
+		private boolean sieveAndCollect(BigInteger b) {
+			int first = 1;
+
+			while(first < size && primes[first] < SMALL_PRIME) {
+				first++;
+			}
+
+			System.arraycopy(start1, 0, next1, 0, size);
+			System.arraycopy(start2, 0, next2, 0, size);
+
+			for(int low = 0; low < sieve.length; low += BLOCK) {
+				int high = Math.min(low + BLOCK, sieve.length);
+
+				Arrays.fill(sieve, low, high, (byte) 0);
+
+				for(int j = first; j < size; j++) {
+					if(inverse[j] == 0) {
+						continue;
+					}
+
+					int p = primes[j];
+					byte log = logs[j];
+					int k = next1[j];
+
+					for(; k < high; k += p) {
+						sieve[k] += log;
+					}
+
+					next1[j] = k;
+					k = next2[j];
+
+					for(; k < high; k += p) {
+						sieve[k] += log;
+					}
+
+					next2[j] = k;
+				}
+
+				for(int i = low; i < high; i++) {
+					if((sieve[i] & 0xFF) >= threshold && trialDivide(b, i)) {
+						return true;
+					}
+				}
+			}
+
+			return false;
+		}
+
+		/**
+		 * @param i position in the sieve, x = i - M
+		 * @return true once enough relations were collected
+		 */
+		private boolean trialDivide(BigInteger b, int i) {
+			BigInteger y = a.multiply(BigInteger.valueOf(i - half)).add(b);
+			BigInteger v = y.multiply(y).subtract(kn).divide(a);
+			int count = 0;
+
+			if(v.signum() == 0) {
+				return false;
+			}
+
+			if(v.signum() < 0) {
+				factors[count++] = 0;
+				v = v.negate();
+			}
+
+			for(int index : q) {
+				factors[count++] = index + 1;
+			}
+
+			int twos = v.getLowestSetBit();
+
+			for(int t = 0; t < twos; t++) {
+				factors[count++] = 1;
+			}
+
+			v = v.shiftRight(twos);
+
+			int j = 1;
+
+			for(; j < size && v.bitLength() >= 63; j++) {
+				int p = primes[j];
+
+				if(inverse[j] != 0) {
+					int position = i % p;
+
+					if(position != start1[j] && position != start2[j]) {
+						continue;
+					}
+				}
+
+				BigInteger prime = BigInteger.valueOf(p);
+				BigInteger[] division = v.divideAndRemainder(prime);
+
+				while(division[1].signum() == 0) {
+					factors[count++] = j + 1;
+					v = division[0];
+					division = v.divideAndRemainder(prime);
+				}
+			}
+
+			if(v.bitLength() >= 63) {
+				return false;
+			}
+
+			long rest = v.longValue();
+
+			for(; j < size && rest > 1; j++) {
+				int p = primes[j];
+
+				if(inverse[j] != 0) {
+					int position = i % p;
+
+					if(position != start1[j] && position != start2[j]) {
+						continue;
+					}
+				}
+
+				while(rest % p == 0) {
+					factors[count++] = j + 1;
+					rest /= p;
+				}
+			}
+
+			if(rest >= largeBound) {
+				return false;
+			}
+
+			return store(y.mod(n), Arrays.copyOf(factors, count), rest);
+		}
+	}
+
+	/**
+	 * Gaussian elimination on the exponent vectors mod 2, each row also tracks which relations it combines
+	 *
+	 * @return a non trivial factor, or null if every dependency was trivial
+	 */
+	private synchronized BigInteger solve() {
+		int rows = relations.size();
+		int columns = primes.length + 1;
+		int vectorWords = (columns + 63) >>> 6;
+		int words = vectorWords + ((rows + 63) >>> 6);
+		long[][] matrix = new long[rows][words];
+
+		for(int r = 0; r < rows; r++) {
+			for(int index : relations.get(r).factors) {
+				matrix[r][index >>> 6] ^= 1L << index;
+			}
+
+			matrix[r][vectorWords + (r >>> 6)] |= 1L << r;
+		}
+
+		boolean[] pivot = new boolean[rows];
+
+		for(int c = 0; c < columns; c++) {
+			int w = c >>> 6;
+			long bit = 1L << c;
+			int p = -1;
+
+			for(int r = 0; r < rows; r++) {
+				if(!pivot[r] && (matrix[r][w] & bit) != 0) {
+					p = r;
+					break;
+				}
+			}
+
+			if(p < 0) {
+				continue;
+			}
+
+			pivot[p] = true;
+
+			long[] source = matrix[p];
+
+			for(int r = p + 1; r < rows; r++) {
+				long[] row = matrix[r];
+
+				if(!pivot[r] && (row[w] & bit) != 0) {
+					for(int k = w; k < words; k++) {
+						row[k] ^= source[k];
+					}
+				}
+			}
+		}
+
+		for(int r = 0; r < rows; r++) {
+			if(pivot[r]) {
+				continue;
+			}
+
+			BigInteger factor = dependency(matrix[r], vectorWords, rows);
+
+			if(factor != null) {
+				return factor;
+			}
+		}
+
+		return null;
+	}
+
+	/**
+	 * @param row a combination of relations whose exponents are all even
+	 * @return gcd(X - Y, N) if it is a non trivial factor, null otherwise
+	 */
+	private BigInteger dependency(long[] row, int offset, int rows) {
+		int[] exponents = new int[primes.length + 1];
+		BigInteger x = BigInteger.ONE;
+		BigInteger y = BigInteger.ONE;
+
+		for(int r = 0; r < rows; r++) {
+			if((row[offset + (r >>> 6)] & (1L << r)) != 0) {
+				Relation relation = relations.get(r);
+
+				for(int index : relation.factors) {
+					exponents[index]++;
+				}
+
+				x = x.multiply(relation.y).mod(n);
+				y = y.multiply(relation.square).mod(n);
+			}
+		}
+
+		for(int j = 1; j < exponents.length; j++) {
+			if(exponents[j] > 0) {
+				y = y.multiply(BigInteger.valueOf(primes[j - 1]).modPow(BigInteger.valueOf(exponents[j] / 2), n)).mod(n);
+			}
+		}
+
+		BigInteger g = x.subtract(y).gcd(n);
+
+		return (g.equals(BigInteger.ONE) || g.equals(n)) ? null : g;
+	}
+
+	/**
+	 * Euler's criterion
+	 *
+	 * @param a in [1, p)
+	 * @param p odd prime
+	 * @return 1 if a is a square mod p, -1 otherwise
+	 */
+	static int legendre(int a, int p) {
+		return (powMod(a, (p - 1) >>> 1, p) == 1) ? 1 : -1;
+	}
+
+	/**
+	 * Tonelli-Shanks
+	 *
+	 * @param a a square in [1, p)
+	 * @param p odd prime
+	 * @return r with r^2 ≡ a (mod p)
+	 */
+	static int sqrtMod(int a, int p) {
+		int s = Integer.numberOfTrailingZeros(p - 1);
+		int q = (p - 1) >>> s;
+
+		if(s == 1) {
+			return (int) powMod(a, (p + 1) >>> 2, p);
+		}
+
+		int z = 2;
+
+		while(legendre(z, p) == 1) {
+			z++;
+		}
+
+		long c = powMod(z, q, p);
+		long r = powMod(a, (q + 1) >>> 1, p);
+		long t = powMod(a, q, p);
+		int m = s;
+
+		while(t != 1) {
+			int i = 0;
+			long u = t;
+
+			while(u != 1) {
+				u = u * u % p;
+				i++;
+			}
+
+			long b = c;
+
+			for(int k = 0; k < m - i - 1; k++) {
+				b = b * b % p;
+			}
+
+			r = r * b % p;
+			c = b * b % p;
+			t = t * c % p;
+			m = i;
+		}
+
+		return (int) r;
+	}
+
+	private static long powMod(long base, int exponent, int p) {
+		long result = 1;
+
+		base %= p;
+
+		while(exponent != 0) {
+			if((exponent & 1) != 0) {
+				result = result * base % p;
+			}
+
+			base = base * base % p;
+			exponent >>>= 1;
+		}
+
+		return result;
+	}
+
+	private static int modInverse(int a, int p) {
+		return (int) powMod(a, p - 2, p);
+	}
+
+	/**
+	 * Driver main method
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		BigInteger p = BigInteger.TEN.pow(24).nextProbablePrime();
+		BigInteger q = BigInteger.TEN.pow(25).add(BigInteger.valueOf(12345)).nextProbablePrime();
+
+		long start = System.currentTimeMillis();
+		System.out.println("Factor of " + p.multiply(q) + " => " + findFactor(p.multiply(q)));
+		System.out.println("SIQS took " + (System.currentTimeMillis() - start) + "ms\n");
+
+		// 16 to 20 digits, where A used to have a single prime and the same value over and over
+		start = System.currentTimeMillis();
+
+		for(int digits = 16; digits <= 20; digits++) {
+			p = BigInteger.TEN.pow(digits / 2).add(BigInteger.valueOf(digits * 1000)).nextProbablePrime();
+			q = BigInteger.TEN.pow(digits - digits / 2 - 1).multiply(BigInteger.valueOf(3)).nextProbablePrime();
+
+			System.out.println("Factor of " + p.multiply(q) + " => " + findFactor(p.multiply(q)));
+		}
+
+		System.out.println("202728720498188993 => " + findFactor(BigInteger.valueOf(202728720498188993L)));
+		System.out.println("Small SIQS took " + (System.currentTimeMillis() - start) + "ms");
+	}
+}
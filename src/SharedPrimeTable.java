@@ -0,0 +1,113 @@
+
+/**
+ * Process wide prime table that grows on demand.<br /><br />
+ *
+ * The primes are held in an immutable {@link PrimeBitSet} published through a volatile field:
+ *
+ * 	- reads never lock, they load the current snapshot and query it
+ * 	- a query past the current limit grows the table under a lock: the new snapshot copies the words of the
+ * 	  previous one and only sieves the new segment, then replaces it with a single volatile write
+ *
+ * The limit at least doubles on every growth so the total sieving cost stays linear, and a prime is never
+ * sieved twice. Use {@link #shared()} rather than creating new instances so that every caller benefits from
+ * what the others already computed.
+ *
+ * @author Stéphan R.
+ *
+ */
+public class SharedPrimeTable implements PrimeTable {
+
+	/**
+	 * Initial limit of a new table
+	 */
+	static final int INITIAL_LIMIT = 1 << 16;
+
+	private static final class Holder {
+		static final SharedPrimeTable INSTANCE = new SharedPrimeTable();
+	}
+
+	private volatile PrimeBitSet snapshot = new PrimeBitSet(INITIAL_LIMIT);
+
+	SharedPrimeTable() {
+	}
+
+	/**
+	 * @return the table shared by every class of the project
+	 */
+	static SharedPrimeTable shared() {
+		return Holder.INSTANCE;
+	}
+
+	/**
+	 * Unlike other tables, any non negative n can be queried: the table grows to cover it if needed
+	 *
+	 * @param n
+	 * @return true if n is prime
+	 */
+	@Override
+	public boolean isPrime(int n) {
+		PrimeBitSet current = snapshot;
+
+		if(n >= current.limit()) {
+			current = snapshot((int) Math.min(n + 1L, Integer.MAX_VALUE));
+		}
+
+		return current.isPrime(n);
+	}
+
+	/**
+	 * @return the limit computed so far, it only ever grows
+	 */
+	@Override
+	public int limit() {
+		return snapshot.limit();
+	}
+
+	/**
+	 * @param n
+	 * @return the smallest prime greater than or equal to n
+	 */
+	int nextPrime(int n) {
+		PrimeBitSet current = snapshot;
+		int prime = current.nextPrime(n);
+
+		while(prime < 0) {
+			if (current.limit() == Integer.MAX_VALUE)
+				throw new ArithmeticException("No int prime greater than or equal to " + n);
+
+			current = snapshot((int) Math.min(Math.max(n, current.limit()) * 2L, Integer.MAX_VALUE));
+			prime = current.nextPrime(n);
+		}
+
+		return prime;
+	}
+
+	/**
+	 * An immutable view covering at least [0, n). Callers doing many lookups below a known bound should query
+	 * it directly rather than going through the volatile read of {@link #isPrime(int)} every time.
+	 *
+	 * @param n the required limit (exclusive)
+	 *
+	 * @return a sieve whose limit is at least n
+	 */
+	PrimeBitSet snapshot(int n) {
+		PrimeBitSet current = snapshot;
+
+		if(n <= current.limit()) {
+			return current;
+		}
+
+		synchronized(this) {
+			current = snapshot;
+
+			if(n > current.limit()) {
+				int limit = (int) Math.min(Math.max((long) n, current.limit() * 2L), Integer.MAX_VALUE);
+
+				current = new PrimeBitSet(current, limit);
+				snapshot = current;
+			}
+
+			return current;
+		}
+	}
+}
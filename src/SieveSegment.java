@@ -0,0 +1,249 @@
+import java.util.Arrays;
+import java.util.function.LongConsumer;
+
+/**
+ * Reusable, cache sized buffer for the segmented Sieve Of Eratosthenes.<br /><br />
+ *
+ * Like {@link PrimeBitSet} only odd numbers are stored: bit {@code i} stands for {@code low + 2i + 1} and is set
+ * when that number is composite. The buffer is allocated once and sieved again for every segment, so a worker
+ * walking over many segments never allocates.<br /><br />
+ *
+ * Base primes are passed as an {@code int[]} read as unsigned values, which covers every odd prime up to
+ * sqrt(2^63) and so every segment that fits in a {@code long}. The even prime 2 is never part of a segment and
+ * is left to the caller.
+ *
+ * @author Stéphan R.
+ *
+ */
+public class SieveSegment {
+
+	/**
+	 * Default segment size: 2^18 odd numbers, i.e. 32KB of words
+	 */
+	static final int DEFAULT_BITS = 1 << 18;
+
+	/**
+	 * Base primes below this bound come from {@link SharedPrimeTable}, larger ones are sieved on their own so
+	 * that the shared table does not keep hundreds of MB alive
+	 */
+	static final int SHARED_LIMIT = 1 << 28;
+
+	private final long[] words;
+	private long low;
+	private int bits;
+
+	SieveSegment() {
+		this(DEFAULT_BITS);
+	}
+
+	/**
+	 * @param capacity the number of odd numbers the buffer can hold
+	 */
+	SieveSegment(int capacity) {
+		if (capacity <= 0)
+			throw new IllegalArgumentException("Segment capacity must be positive");
+
+		this.words = new long[(capacity + 63) >>> 6];
+	}
+
+	/**
+	 * @return the number of integers covered by a full segment
+	 */
+	long span() {
+		return (long) words.length << 7;
+	}
+
+	/**
+	 * Mark the odd composites of [low, high)
+	 *
+	 * @param low the first number of the segment, must be even
+	 * @param high the exclusive upper bound, at most {@code low + span()}
+	 * @param basePrimes the odd primes, in increasing order, up to at least sqrt(high - 1)
+	 */
+	void sieve(long low, long high, int[] basePrimes) {
+		if ((low & 1) != 0 || low < 0 || high < low || high - low > span())
+			throw new IllegalArgumentException("Invalid segment [" + low + ", " + high + ")");
+
+		int bits = (int) ((high - low) >>> 1);
+		int used = (bits + 63) >>> 6;
+
+		this.low = low;
+		this.bits = bits;
+
+		Arrays.fill(words, 0, used, 0L);
+
+		if(bits == 0) {
+			return;
+		}
+
+		if((bits & 63) != 0) {
+			words[used - 1] |= -1L << bits;
+		}
+
+		if(low == 0) {
+			// 1 is not a prime
+			words[0] |= 1L;
+		}
+
+		for(int i = 0; i < basePrimes.length; i++) {
+			long p = basePrimes[i] & 0xFFFFFFFFL;
+			long square = p * p;
+
+			if(square >= high) {
+				break;
+			}
+
+			// Offset of the first odd multiple to cross off, kept relative to low to avoid overflow near 2^63
+			long offset = (square > low) ? square - low : (p - low % p) % p;
+
+			if(((low + offset) & 1) == 0) {
+				offset += p;
+			}
+
+			for(long j = offset >>> 1; j < bits; j += p) {
+				words[(int) (j >>> 6)] |= 1L << j;
+			}
+		}
+	}
+
+	/**
+	 * @return the first number of the last sieved segment
+	 */
+	long low() {
+		return low;
+	}
+
+	/**
+	 * @return the exclusive upper bound of the last sieved segment
+	 */
+	long high() {
+		return low + ((long) bits << 1);
+	}
+
+	/**
+	 * @return the number of odd primes in the last sieved segment
+	 */
+	int count() {
+		int used = (bits + 63) >>> 6;
+		int composites = 0;
+
+		for(int w = 0; w < used; w++) {
+			composites += Long.bitCount(words[w]);
+		}
+
+		return (used << 6) - composites;
+	}
+
+	/**
+	 * Copy the odd primes of the last sieved segment into out
+	 *
+	 * @param out
+	 * @param offset the first index to write to
+	 *
+	 * @return the index after the last prime written
+	 */
+	int collect(long[] out, int offset) {
+		int used = (bits + 63) >>> 6;
+
+		for(int w = 0; w < used; w++) {
+			long word = ~words[w];
+
+			while(word != 0) {
+				out[offset++] = low + ((((long) w << 6) + Long.numberOfTrailingZeros(word)) << 1) + 1;
+				word &= word - 1;
+			}
+		}
+
+		return offset;
+	}
+
+	/**
+	 * Feed the odd primes of the last sieved segment to action, in increasing order
+	 *
+	 * @param action
+	 */
+	void forEach(LongConsumer action) {
+		int used = (bits + 63) >>> 6;
+
+		for(int w = 0; w < used; w++) {
+			long word = ~words[w];
+
+			while(word != 0) {
+				action.accept(low + ((((long) w << 6) + Long.numberOfTrailingZeros(word)) << 1) + 1);
+				word &= word - 1;
+			}
+		}
+	}
+
+	/**
+	 * Odd primes up to limit, packed as unsigned ints. Limits beyond {@code Integer.MAX_VALUE} are sieved
+	 * segment by segment so that only the result is held in memory.
+	 *
+	 * @param limit inclusive, at most 2^32 - 1
+	 *
+	 * @return the odd primes in increasing order
+	 */
+	static int[] basePrimes(long limit) {
+		if (limit > 0xFFFFFFFFL)
+			throw new IllegalArgumentException("Base primes are limited to 32 bits: " + limit);
+
+		if(limit < SHARED_LIMIT) {
+			int[] primes = SharedPrimeTable.shared().snapshot((int) limit + 1).toArray((int) limit + 1);
+
+			return (primes.length == 0) ? primes : Arrays.copyOfRange(primes, 1, primes.length);
+		}
+
+		if(limit < Integer.MAX_VALUE) {
+			int[] primes = new PrimeBitSet((int) limit + 1).toArray();
+
+			return (primes.length == 0) ? primes : Arrays.copyOfRange(primes, 1, primes.length);
+		}
+
+		int[] small = basePrimes(isqrt(limit));
+		// Dusart: pi(x) < x / ln(x) * (1 + 1.2762 / ln(x))
+		double log = Math.log(limit);
+		int[] primes = new int[(int) (limit / log * (1 + 1.2762 / log)) + 1];
+		int count = 0;
+		SieveSegment segment = new SieveSegment();
+
+		for(long low = 0; low <= limit; low += segment.span()) {
+			segment.sieve(low, Math.min(low + segment.span(), limit + 1), small);
+
+			int used = (segment.bits + 63) >>> 6;
+
+			for(int w = 0; w < used; w++) {
+				long word = ~segment.words[w];
+
+				while(word != 0) {
+					long p = low + ((((long) w << 6) + Long.numberOfTrailingZeros(word)) << 1) + 1;
+
+					if(p <= limit) {
+						primes[count++] = (int) p;
+					}
+
+					word &= word - 1;
+				}
+			}
+		}
+
+		return Arrays.copyOf(primes, count);
+	}
+
+	/**
+	 * @param n non negative
+	 * @return floor(sqrt(n))
+	 */
+	static long isqrt(long n) {
+		long r = Math.min((long) Math.sqrt((double) n), 3037000499L);
+
+		while(r * r > n) {
+			r--;
+		}
+
+		while(r < 3037000499L && (r + 1) * (r + 1) <= n) {
+			r++;
+		}
+
+		return r;
+	}
+}
@@ -0,0 +1,229 @@
+import java.util.Arrays;
+
+/**
+ * https://cp-algorithms.com/algebra/prime-sieve-linear.html
+ *
+ * Smallest prime factor of every integer below a limit, filled by a linear sieve.<br /><br />
+ *
+ * <pre>{@code
+ * For each odd i >= 3
+ * 	s = spf(i), i is prime when nothing marked it yet
+ * 	For each odd prime p <= s with i * p < limit
+ * 		spf(i * p) = p
+ * }</pre>
+ *
+ * Every composite is written exactly once, by its smallest prime factor, and only the primes below √limit
+ * ever have to be kept aside. A factorization then only divides by spf(n) until 1 is reached, which takes one
+ * lookup per prime factor instead of the O(√n) of trial division.<br /><br />
+ *
+ * Two layouts trade speed for memory, see {@link Layout}. Primes are stored as 0 in both of them.
+ *
+ * @author Stéphan R.
+ *
+ */
+public class SmallestPrimeFactorTable implements PrimeTable {
+
+	enum Layout {
+
+		/**
+		 * One int per integer, even ones included: 4 bytes per number
+		 */
+		FULL,
+
+		/**
+		 * One char per odd integer, powers of two are stripped with a shift: 1 byte per number. A composite
+		 * below 2^32 always has a prime factor below 2^16 so it always fits.
+		 */
+		ODD_COMPACT
+	}
+
+	private final Layout layout;
+	private final int limit;
+	private final int[] full;
+	private final char[] odd;
+
+	/**
+	 * @param n the limit (exclusive)
+	 */
+	SmallestPrimeFactorTable(int n) {
+		this(n, Layout.ODD_COMPACT);
+	}
+
+	/**
+	 * @param n the limit (exclusive)
+	 * @param layout
+	 */
+	SmallestPrimeFactorTable(int n, Layout layout) {
+		if (n < 0)
+			throw new IllegalArgumentException("Negative number");
+
+		this.layout = layout;
+		this.limit = n;
+		this.full = (layout == Layout.FULL) ? new int[n] : null;
+		this.odd = (layout == Layout.ODD_COMPACT) ? new char[(n + 1) >>> 1] : null;
+
+		if(full != null) {
+			for(int i = 4; i < n; i += 2) {
+				full[i] = 2;
+			}
+		}
+
+		int root = (int) SieveSegment.isqrt(Math.max(n - 1, 0));
+		int[] primes = new int[Math.max(root, 1)];
+		int count = 0;
+
+		for(long i = 3; i * 3 < n; i += 2) {
+			int s = get((int) i);
+
+			if(s == 0) {
+				s = (int) i;
+
+				if(i <= root) {
+					primes[count++] = s;
+				}
+			}
+
+			for(int k = 0; k < count; k++) {
+				int p = primes[k];
+				long multiple = i * p;
+
+				if(p > s || multiple >= n) {
+					break;
+				}
+
+				set((int) multiple, p);
+			}
+		}
+	}
+
+	private int get(int n) {
+		return (full != null) ? full[n] : odd[n >>> 1];
+	}
+
+	private void set(int n, int p) {
+		if(full != null) {
+			full[n] = p;
+		} else {
+			odd[n >>> 1] = (char) p;
+		}
+	}
+
+	/**
+	 * @param n in [2, limit)
+	 * @return the smallest prime dividing n
+	 */
+	int smallestPrimeFactor(int n) {
+		if(n < 2 || n >= limit)
+			throw new IllegalArgumentException(n + " is outside of the table range [2, " + limit + ")");
+
+		if(odd != null && (n & 1) == 0) {
+			return 2;
+		}
+
+		int p = get(n);
+
+		return (p == 0) ? n : p;
+	}
+
+	/**
+	 * Allocation free factorization
+	 *
+	 * @param n in [1, limit)
+	 * @param factors receives the prime factors of n in increasing order, repeated according to their
+	 * 		multiplicity; 31 entries are always enough
+	 *
+	 * @return the number of prime factors written
+	 */
+	int factorize(int n, int[] factors) {
+		if(n < 1 || n >= limit)
+			throw new IllegalArgumentException(n + " is outside of the table range [1, " + limit + ")");
+
+		int count = 0;
+
+		if(odd != null) {
+			int twos = Integer.numberOfTrailingZeros(n);
+
+			for(int i = 0; i < twos; i++) {
+				factors[count++] = 2;
+			}
+
+			n >>>= twos;
+		}
+
+		while(n > 1) {
+			int p = get(n);
+
+			if(p == 0) {
+				p = n;
+			}
+
+			factors[count++] = p;
+			n /= p;
+		}
+
+		return count;
+	}
+
+	/**
+	 * @param n in [1, limit)
+	 * @return the prime factors of n in increasing order, repeated according to their multiplicity
+	 */
+	int[] factorize(int n) {
+		int[] factors = new int[31];
+
+		return Arrays.copyOf(factors, factorize(n, factors));
+	}
+
+	@Override
+	public boolean isPrime(int n) {
+		if(n < 0 || n >= limit)
+			throw new IllegalArgumentException(n + " is outside of the table range [0, " + limit + ")");
+
+		return n >= 2 && smallestPrimeFactor(n) == n;
+	}
+
+	@Override
+	public int limit() {
+		return limit;
+	}
+
+	/**
+	 * @return the layout chosen at construction
+	 */
+	Layout layout() {
+		return layout;
+	}
+
+	/**
+	 * @return the number of bytes held by the table
+	 */
+	long memoryBytes() {
+		return (full != null) ? (long) full.length << 2 : (long) odd.length << 1;
+	}
+
+	/**
+	 * Driver main method
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		int n = 100_000_000;
+		int[] factors = new int[31];
+
+		for(Layout layout : Layout.values()) {
+			long start = System.currentTimeMillis();
+			SmallestPrimeFactorTable table = new SmallestPrimeFactorTable(n, layout);
+			System.out.println(layout + " table of " + (table.memoryBytes() >> 20) + "MB took " + (System.currentTimeMillis() - start) + "ms");
+
+			start = System.currentTimeMillis();
+			long total = 0;
+
+			for(int i = 1; i < n; i++) {
+				total += table.factorize(i, factors);
+			}
+
+			System.out.println(total + " prime factors below " + n);
+			System.out.println("Factorizing every number took " + (System.currentTimeMillis() - start) + "ms\n");
+		}
+	}
+}
@@ -0,0 +1,332 @@
+/**
+ * https://en.wikipedia.org/wiki/Fermat%27s_factorization_method
+ * https://en.wikipedia.org/wiki/Shanks%27s_square_forms_factorization
+ * https://programmingpraxis.com/2014/01/28/harts-one-line-factoring-algorithm/
+ *
+ * Factoring methods that look for a square, for composites of a long.<br /><br />
+ *
+ * <pre>{@code
+ * Fermat:	a = ⌈√n⌉, while a^2 - n is not a square, a++
+ * 		n = (a - b)(a + b) with b^2 = a^2 - n, found at once when the factors are close to √n
+ *
+ * Hart:	for i = 1, 2, ...
+ * 			s = ⌈√(n·i)⌉, m = s^2 - n·i
+ * 			if m = t^2, gcd(s - t, n) is a factor
+ *
+ * SQUFOF:	Walk the continued fraction of √(k·n) until a square Q = r^2 on an even step,
+ * 		then walk the reduced form (r, P) until P repeats, gcd(n, Q) is a factor
+ * 		The small multipliers k give other chances when one expansion fails
+ * }</pre>
+ *
+ * Every method returns 0 when it finds no factor within its budget. All are built on the exact
+ * {@link SieveSegment#isqrt(long)} and {@link #isSquare(long)}.
+ *
+ * @author Stéphan R.
+ *
+ */
+public class SquareFactorization {
+
+	/**
+	 * Square-free products of 3, 5, 7 and 11, tried in turn by SQUFOF
+	 */
+	private static final int[] MULTIPLIERS = {1, 3, 5, 7, 11, 3 * 5, 3 * 7, 3 * 11, 5 * 7, 5 * 11, 7 * 11,
+			3 * 5 * 7, 3 * 5 * 11, 3 * 7 * 11, 5 * 7 * 11, 3 * 5 * 7 * 11};
+
+	/**
+	 * Hart's method runs faster on n·480·i, 480 = 2^5·3·5 makes s^2 - n·i a square more often
+	 */
+	private static final long HART_MULTIPLIER = 480;
+
+	/**
+	 * Bit i is set if i is a square modulo 64, resp. 63
+	 */
+	private static final long SQUARES_64;
+	private static final long SQUARES_63;
+
+	static {
+		long squares64 = 0;
+		long squares63 = 0;
+
+		for(int i = 0; i < 64; i++) {
+			squares64 |= 1L << ((i * i) & 63);
+			squares63 |= 1L << ((i * i) % 63);
+		}
+
+		SQUARES_64 = squares64;
+		SQUARES_63 = squares63;
+	}
+
+	/**
+	 * Only about 1 number in 12 passes both masks, the others never reach the square root
+	 *
+	 * @param n
+	 * @return true if n is the square of an integer
+	 */
+	static boolean isSquare(long n) {
+		if(n < 0 || (SQUARES_64 << ~n) >= 0 || (SQUARES_63 << ~(n % 63)) >= 0) {
+			return false;
+		}
+
+		long r = SieveSegment.isqrt(n);
+
+		return r * r == n;
+	}
+
+	/**
+	 * @param n odd, greater than 2
+	 * @param steps increments of a tried
+	 *
+	 * @return a non trivial factor of n, or 0 if its factors are too far from √n
+	 */
+	static long fermat(long n, int steps) {
+		checkOdd(n);
+
+		long a = SieveSegment.isqrt(n);
+
+		if(a * a == n) {
+			return a;
+		}
+
+		a++;
+
+		// a^2 may overflow but a^2 - n is below 2a + 1, the wrapped difference is exact
+		long b2 = a * a - n;
+
+		for(int i = 0; i < steps; i++) {
+			if(isSquare(b2)) {
+				long d = a - SieveSegment.isqrt(b2);
+
+				return (d == 1) ? 0 : d;
+			}
+
+			b2 += 2 * a + 1;
+			a++;
+		}
+
+		return 0;
+	}
+
+	/**
+	 * @param n odd, greater than 2
+	 * @param iterations multiples of n tried
+	 *
+	 * @return a non trivial factor of n, or 0 if none was found
+	 */
+	static long hart(long n, int iterations) {
+		checkOdd(n);
+
+		if(isSquare(n)) {
+			return SieveSegment.isqrt(n);
+		}
+
+		long multiplier = (n <= Long.MAX_VALUE / HART_MULTIPLIER) ? n * HART_MULTIPLIER : n;
+
+		for(long i = 1; i <= iterations; i++) {
+			// Past this point n·i does not fit in a long any more
+			if(multiplier > Long.MAX_VALUE / i) {
+				return 0;
+			}
+
+			long ni = multiplier * i;
+			long s = SieveSegment.isqrt(ni);
+
+			if(s * s != ni) {
+				s++;
+			}
+
+			long m = s * s - ni;
+
+			if(isSquare(m)) {
+				long g = GreatestCommonDivisor.binary(s - SieveSegment.isqrt(m), n);
+
+				if(g != 1 && g != n) {
+					return g;
+				}
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * k·n is handled as an unsigned long, so a multiplier is tried as long as k·n < 2^64. This keeps every
+	 * multiplier up to n ≈ 1.6·10^16, but only k = 1 and 3 are left near 2^62 and k = 1 alone past 2^64 / 3:
+	 * about 1 balanced semiprime in 10 of 62 bits still fails and is left to the other methods.
+	 *
+	 * @param n odd, greater than 2
+	 * @return a non trivial factor of n, or 0 if every multiplier failed
+	 */
+	static long squfof(long n) {
+		checkOdd(n);
+
+		long s = SieveSegment.isqrt(n);
+
+		if(s * s == n) {
+			return s;
+		}
+
+		for(int k : MULTIPLIERS) {
+			if(Long.compareUnsigned(n, Long.divideUnsigned(-1L, k)) > 0) {
+				break;
+			}
+
+			long d = squfof(n, k * n);
+
+			if(d != 0) {
+				return d;
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * One continued fraction expansion of √kn. Only kn itself may exceed 2^63, P stays below √kn and Q
+	 * below 2√kn, so every other value fits in a signed long.
+	 *
+	 * @param n
+	 * @param kn unsigned
+	 *
+	 * @return a non trivial factor of n, or 0
+	 */
+	private static long squfof(long n, long kn) {
+		long p0 = unsignedIsqrt(kn);
+		long q = kn - p0 * p0;
+
+		if(q == 0) {
+			long g = GreatestCommonDivisor.binary(p0, n);
+
+			return (g == 1 || g == n) ? 0 : g;
+		}
+
+		// Forward cycle length bound, B = 3·2·√(2·√kn)
+		long bound = 6 * SieveSegment.isqrt(2 * p0);
+		long p = p0;
+		long previousP = p0;
+		long previousQ = 1;
+		long r = 0;
+		long i = 2;
+
+		// Forward: look for a square Q on an even step
+		for( ; i < bound; i++) {
+			long b = quotient(p0 + p, q);
+
+			p = b * q - p;
+
+			long t = q;
+
+			q = previousQ + b * (previousP - p);
+
+			if((i & 1) == 0 && isSquare(q)) {
+				r = SieveSegment.isqrt(q);
+				break;
+			}
+
+			previousQ = t;
+			previousP = p;
+		}
+
+		if(i >= bound) {
+			return 0;
+		}
+
+		// Reverse: from the square root of the form, walk until P is symmetric
+		long b = (p0 - p) / r;
+
+		p = b * r + p;
+		previousP = p;
+		previousQ = r;
+		q = Long.divideUnsigned(kn - p * p, r);
+
+		for(long j = 0; j < bound; j++) {
+			b = quotient(p0 + p, q);
+			previousP = p;
+			p = b * q - p;
+
+			long t = q;
+
+			q = previousQ + b * (previousP - p);
+			previousQ = t;
+
+			if(p == previousP) {
+				long g = GreatestCommonDivisor.binary(n, previousQ);
+
+				return (g == 1 || g == n) ? 0 : g;
+			}
+		}
+
+		return 0;
+	}
+
+	/**
+	 * @param n unsigned
+	 * @return ⌊√n⌋, n read as an unsigned long
+	 */
+	private static long unsignedIsqrt(long n) {
+		if(n >= 0) {
+			return SieveSegment.isqrt(n);
+		}
+
+		long r = Math.min((long) Math.sqrt((n >>> 1) * 2.0), 0xFFFFFFFFL);
+
+		while(Long.compareUnsigned(r * r, n) > 0) {
+			r--;
+		}
+
+		while(r < 0xFFFFFFFFL && Long.compareUnsigned((r + 1) * (r + 1), n) <= 0) {
+			r++;
+		}
+
+		return r;
+	}
+
+	/**
+	 * Most partial quotients of a continued fraction are 1 or 2, skip the division for them
+	 */
+	private static long quotient(long a, long b) {
+		long twice = b << 1;
+
+		if(a < twice) {
+			return (a < b) ? 0 : 1;
+		}
+
+		return (a < twice + b) ? 2 : a / b;
+	}
+
+	private static void checkOdd(long n) {
+		if (n < 3 || (n & 1) == 0)
+			throw new IllegalArgumentException("Not an odd number greater than 2: " + n);
+	}
+
+	/**
+	 * Driver main method
+	 *
+	 * @param args
+	 */
+	public static void main(String[] args) {
+		long n = 1000003L * 1000033L;
+
+		long start = System.currentTimeMillis();
+		System.out.println("Fermat factor of " + n + " => " + fermat(n, 1 << 10));
+		System.out.println("Fermat took " + (System.currentTimeMillis() - start) + "ms\n");
+
+		n = 1000003L * 2147483647L;
+
+		start = System.currentTimeMillis();
+		System.out.println("Hart factor of " + n + " => " + hart(n, 1 << 20));
+		System.out.println("Hart took " + (System.currentTimeMillis() - start) + "ms\n");
+
+		n = 998244353L * 1000000007L;
+
+		start = System.currentTimeMillis();
+		System.out.println("SQUFOF factor of " + n + " => " + squfof(n));
+		System.out.println("SQUFOF took " + (System.currentTimeMillis() - start) + "ms\n");
+
+		// k = 1 fails on this 62 bit semiprime, 3·n is above 2^63
+		n = 1158351617L * 4011059623L;
+
+		start = System.currentTimeMillis();
+		System.out.println("SQUFOF factor of " + n + " => " + squfof(n) + " (expected 1158351617)");
+		System.out.println("SQUFOF took " + (System.currentTimeMillis() - start) + "ms");
+	}
+}